@@ -0,0 +1,287 @@
+package com.example.chessengine.Board;
+
+/**
+ * The Attacks class holds the precomputed attack tables used by the bitboard position.
+ * The leaping pieces use a bitboard per square, and the sliding pieces use magic bitboards,
+ * where the relevant blockers are multiplied by a magic number to index into a table of attack sets.
+ * Squares are numbered row * 8 + col, starting from the bottom left, the same as the zobrist keys.
+ */
+public final class Attacks {
+    /**
+     * Private constructor. Instantiation isn't needed.
+     */
+    private Attacks() {}
+
+    /**
+     * The squares a knight attacks from each square.
+     */
+    public static final long[] knightAttacks = new long[64];
+
+    /**
+     * The squares a king attacks from each square.
+     */
+    public static final long[] kingAttacks = new long[64];
+
+    /**
+     * The squares a pawn of each colour (0 white, 1 black) attacks from each square.
+     */
+    public static final long[][] pawnAttacks = new long[2][64];
+
+    /**
+     * The squares strictly between two squares on the same rank, file or diagonal, indexed by both squares.
+     * It is empty if the squares aren't on a shared line.
+     */
+    public static final long[][] between = new long[64][64];
+
+    /**
+     * The whole rank, file or diagonal going through two squares, indexed by both squares.
+     * It is empty if the squares aren't on a shared line.
+     */
+    public static final long[][] line = new long[64][64];
+
+    /**
+     * The relevant blocker mask for a rook on each square, excluding the edges of the board.
+     */
+    private static final long[] rookMasks = new long[64];
+
+    /**
+     * The relevant blocker mask for a bishop on each square, excluding the edges of the board.
+     */
+    private static final long[] bishopMasks = new long[64];
+
+    /**
+     * The magic number for a rook on each square.
+     * They were found by a random search, trying sparse random numbers until one mapped every blocker combination without a collision.
+     */
+    private static final long[] rookMagics = {
+            0x6080102080004000L, 0x4100208040001100L, 0x0880200080081000L, 0xA080041001810800L,
+            0x5600100804200200L, 0x4100080400010002L, 0x0280028002000100L, 0x02000A0080310044L,
+            0x00048000804005A0L, 0x8206401000200040L, 0x0213001444E00100L, 0x0004801002800800L,
+            0x0080808004000800L, 0x1252000200840810L, 0x48C1010004020001L, 0x360E000AA6010044L,
+            0x1080928000244009L, 0x8020404010002000L, 0x8900808020001000L, 0x2240090020100102L,
+            0x0100050008010050L, 0x0404004002004100L, 0x10A4040010010802L, 0x0224020008910054L,
+            0x0000802080004000L, 0x1402004200210080L, 0x20A1200300184100L, 0x0204200900100104L,
+            0x0100080080040080L, 0x0882020080040080L, 0x0804010080800200L, 0x0010110200008044L,
+            0x8040004020800080L, 0x0000208101004004L, 0x0010001080802000L, 0x0220080080801000L,
+            0x0000800400800800L, 0x0002002004040010L, 0x8008100804008201L, 0x8081001689000142L,
+            0x4410209040008008L, 0x0028200850004000L, 0x1480100020008080L, 0x00004022000A0012L,
+            0x0083448801010030L, 0x0004401020080104L, 0x0000040200010100L, 0x1185010080420004L,
+            0x0200411020800100L, 0x0000400020068880L, 0x1040100080200880L, 0x0014801000080080L,
+            0x2008010400800980L, 0x0804008002004480L, 0x2008A11082180C00L, 0x8008124409208200L,
+            0x5406800021924101L, 0x6000201100804001L, 0x0080081082002042L, 0x0400100004082101L,
+            0x4082000408102002L, 0x0221000204000801L, 0x010041082E821004L, 0x8012004829040082L
+    };
+
+    /**
+     * The magic number for a bishop on each square.
+     */
+    private static final long[] bishopMagics = {
+            0x1002040408020028L, 0x0460020C250020A0L, 0x0850008600508089L, 0xA208208020000020L,
+            0x4041104030A00201L, 0x04110108C0141080L, 0x8008808430424041L, 0x4001818090300204L,
+            0x000288081008A204L, 0x50000B0488206040L, 0x0240A11834808000L, 0x1410440410800021L,
+            0x24010C04A2001404L, 0x1804120884048408L, 0x020802008404C049L, 0x440001110D072000L,
+            0x08404604082AC409L, 0x22A0001001120090L, 0x0001001000448100L, 0x2008008088250040L,
+            0x504A03A402110100L, 0x5014418201100100L, 0x02441C8049084800L, 0x0000458284088840L,
+            0x0020104020044100L, 0x0208042421040080L, 0x0222444090040088L, 0x4001480009820040L,
+            0x0201010000104000L, 0x0010008001004100L, 0x400400600401040AL, 0x0041220004420090L,
+            0x008864C080042810L, 0x0881040240208800L, 0x4300D2480484080AL, 0x0100208020080200L,
+            0x0001100400008020L, 0x0410008C20020200L, 0x0021080480011C22L, 0x0010823540188400L,
+            0x8000826050C02109L, 0x6C00444420881400L, 0x1243040201060A00L, 0x5080802019000800L,
+            0x882020020C000183L, 0x0010851001004120L, 0x0010900D50403100L, 0x003009006500A084L,
+            0x1104010802110000L, 0x0108241208040180L, 0x50CA00C414140659L, 0x000808002A080000L,
+            0x0002681082020103L, 0xA1100822C85200A1L, 0xA0E022045B44040CL, 0x4010220081120400L,
+            0x0000840121012000L, 0x0408011401142204L, 0x00008401440A2100L, 0x0800000000208800L,
+            0x0100000040104108L, 0x401806C0290F1102L, 0x4004401054909080L, 0x0208101026024012L
+    };
+
+    /**
+     * The amount the product of the blockers and the magic number is shifted by for a rook on each square.
+     */
+    private static final int[] rookShifts = new int[64];
+
+    /**
+     * The amount the product of the blockers and the magic number is shifted by for a bishop on each square.
+     */
+    private static final int[] bishopShifts = new int[64];
+
+    /**
+     * The start of each square's section in the rook attack table.
+     */
+    private static final int[] rookOffsets = new int[64];
+
+    /**
+     * The start of each square's section in the bishop attack table.
+     */
+    private static final int[] bishopOffsets = new int[64];
+
+    /**
+     * The rook attack sets for every square and every relevant blocker combination.
+     */
+    private static final long[] rookTable = new long[102_400];
+
+    /**
+     * The bishop attack sets for every square and every relevant blocker combination.
+     */
+    private static final long[] bishopTable = new long[5_248];
+
+    /**
+     * The row and column offsets a rook can slide in.
+     */
+    private static final int[][] rookDirections = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    /**
+     * The row and column offsets a bishop can slide in.
+     */
+    private static final int[][] bishopDirections = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    static {
+        int[][] knightOffsets = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        int[][] kingOffsets = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        for (int square = 0; square < 64; square++) {
+            knightAttacks[square] = leaperAttacks(square, knightOffsets);
+            kingAttacks[square] = leaperAttacks(square, kingOffsets);
+            pawnAttacks[0][square] = leaperAttacks(square, new int[][]{{1, 1}, {1, -1}});
+            pawnAttacks[1][square] = leaperAttacks(square, new int[][]{{-1, 1}, {-1, -1}});
+        }
+
+        int rookOffset = 0;
+        int bishopOffset = 0;
+        for (int square = 0; square < 64; square++) {
+            rookMasks[square] = relevantMask(square, rookDirections);
+            rookShifts[square] = 64 - Long.bitCount(rookMasks[square]);
+            rookOffsets[square] = rookOffset;
+            fillTable(square, rookMasks[square], rookMagics[square], rookShifts[square], rookDirections, rookTable, rookOffset);
+            rookOffset += 1 << Long.bitCount(rookMasks[square]);
+
+            bishopMasks[square] = relevantMask(square, bishopDirections);
+            bishopShifts[square] = 64 - Long.bitCount(bishopMasks[square]);
+            bishopOffsets[square] = bishopOffset;
+            fillTable(square, bishopMasks[square], bishopMagics[square], bishopShifts[square], bishopDirections, bishopTable, bishopOffset);
+            bishopOffset += 1 << Long.bitCount(bishopMasks[square]);
+        }
+
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                if (from == to) continue;
+                long fromBit = 1L << from;
+                long toBit = 1L << to;
+                if ((rookAttacks(from, 0) & toBit) != 0) {
+                    between[from][to] = rookAttacks(from, toBit) & rookAttacks(to, fromBit);
+                    line[from][to] = (rookAttacks(from, 0) & rookAttacks(to, 0)) | fromBit | toBit;
+                } else if ((bishopAttacks(from, 0) & toBit) != 0) {
+                    between[from][to] = bishopAttacks(from, toBit) & bishopAttacks(to, fromBit);
+                    line[from][to] = (bishopAttacks(from, 0) & bishopAttacks(to, 0)) | fromBit | toBit;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param square The square the rook is on (0 to 63 inclusive).
+     * @param occupied The bitboard of every occupied square.
+     * @return The squares the rook attacks, including the first blocker in each direction.
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return rookTable[rookOffsets[square] + (int) (((occupied & rookMasks[square]) * rookMagics[square]) >>> rookShifts[square])];
+    }
+
+    /**
+     * @param square The square the bishop is on (0 to 63 inclusive).
+     * @param occupied The bitboard of every occupied square.
+     * @return The squares the bishop attacks, including the first blocker in each direction.
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return bishopTable[bishopOffsets[square] + (int) (((occupied & bishopMasks[square]) * bishopMagics[square]) >>> bishopShifts[square])];
+    }
+
+    /**
+     * @param square The square the queen is on (0 to 63 inclusive).
+     * @param occupied The bitboard of every occupied square.
+     * @return The squares the queen attacks, including the first blocker in each direction.
+     */
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * Creates the bitboard of the squares reached by jumping from the square by each offset, ignoring any that go off the board.
+     * @param square The square the piece is on.
+     * @param offsets The row and column offsets the piece can jump by.
+     * @return The bitboard of the squares that can be jumped to.
+     */
+    private static long leaperAttacks(int square, int[][] offsets) {
+        long attacks = 0;
+        int row = square >>> 3;
+        int col = square & 7;
+        for (int[] offset : offsets) {
+            int newRow = row + offset[0];
+            int newCol = col + offset[1];
+            if (newRow >= 0 && newRow < 8 && newCol >= 0 && newCol < 8) attacks |= 1L << (newRow * 8 + newCol);
+        }
+        return attacks;
+    }
+
+    /**
+     * Walks from the square in each direction until a blocker or the edge of the board is hit.
+     * This is the slow method used to fill in the magic tables.
+     * @param square The square the piece is on.
+     * @param occupied The bitboard of the blockers.
+     * @param directions The row and column offsets the piece can slide in.
+     * @return The squares the piece attacks, including the first blocker in each direction.
+     */
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int row = (square >>> 3) + direction[0];
+            int col = (square & 7) + direction[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                long bit = 1L << (row * 8 + col);
+                attacks |= bit;
+                if ((occupied & bit) != 0) break;
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * The squares that could block a sliding piece, which are the squares it could reach without the last square in each direction,
+     * as a piece on the edge of the board never blocks anything behind it.
+     * @param square The square the piece is on.
+     * @param directions The row and column offsets the piece can slide in.
+     * @return The bitboard of the relevant blocker squares.
+     */
+    private static long relevantMask(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions) {
+            int row = (square >>> 3) + direction[0];
+            int col = (square & 7) + direction[1];
+            while (row + direction[0] >= 0 && row + direction[0] < 8 && col + direction[1] >= 0 && col + direction[1] < 8) {
+                mask |= 1L << (row * 8 + col);
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Fills the square's section of the attack table, with the attack set for every combination of blockers in the mask.
+     * @param square The square the piece is on.
+     * @param mask The relevant blocker mask for the square.
+     * @param magic The magic number for the square.
+     * @param shift The amount the product is shifted by.
+     * @param directions The row and column offsets the piece can slide in.
+     * @param table The attack table being filled.
+     * @param offset The start of this square's section in the table.
+     */
+    private static void fillTable(int square, long mask, long magic, int shift, int[][] directions, long[] table, int offset) {
+        // enumerate every subset of the mask
+        long blockers = 0;
+        do {
+            table[offset + (int) ((blockers * magic) >>> shift)] = slidingAttacks(square, blockers, directions);
+            blockers = (blockers - mask) & mask;
+        } while (blockers != 0);
+    }
+}
@@ -0,0 +1,986 @@
+package com.example.chessengine.Board;
+
+import com.example.chessengine.Board.Moves.PackedMove;
+import com.example.chessengine.Board.Pieces.Piece;
+
+import java.util.Arrays;
+
+/**
+ * The BitBoard class is a compact representation of a position, used by the engine instead of the Cell and Piece objects.
+ * It holds a 64 bit number for each piece type of each colour, where each set bit is a square containing that piece,
+ * and a bitboard of the squares occupied by each colour.
+ * Squares are numbered row * 8 + col, starting from the bottom left, the same as the zobrist keys.
+ * Pieces are indexed by colour * 6 + pieceNum, where white is 0 and black is 1, and pieceNum is the same as in the Piece class.
+ */
+public class BitBoard {
+    /**
+     * The index of the white colour.
+     */
+    public static final int WHITE = 0;
+
+    /**
+     * The index of the black colour.
+     */
+    public static final int BLACK = 1;
+
+    /**
+     * The piece numbers, the same as Piece.pieceNum.
+     */
+    public static final int PAWN = 0, KNIGHT = 1, BISHOP = 2, ROOK = 3, QUEEN = 4, KING = 5;
+
+    /**
+     * The value used in the squares array for an empty square.
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * The castling right bits, matching the order of Board.getCastlingState (KQkq).
+     */
+    public static final int WHITE_KING_SIDE = 8, WHITE_QUEEN_SIDE = 4, BLACK_KING_SIDE = 2, BLACK_QUEEN_SIDE = 1;
+
+    /**
+     * The maximum number of moves that can be made before they are undone.
+     */
+    public static final int MAX_MOVES = 1024;
+
+    /**
+     * The maximum number of pseudolegal moves in any position is 218, so a move buffer of this size can never overflow.
+     */
+    public static final int MAX_MOVES_IN_POSITION = 256;
+
+    /**
+     * The value of each piece type for static exchange evaluation, where the king is worth more than everything else.
+     */
+    public static final int[] SEE_VALUES = {100, 325, 325, 525, 1000, 20000};
+
+    /**
+     * The castling rights kept when a piece moves from or to each square, so moving the king or a rook, or capturing a rook, removes the right.
+     */
+    private static final int[] castlingMasks = new int[64];
+
+    static {
+        Arrays.fill(castlingMasks, 15);
+        castlingMasks[0] = 15 & ~WHITE_QUEEN_SIDE;
+        castlingMasks[7] = 15 & ~WHITE_KING_SIDE;
+        castlingMasks[4] = 15 & ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        castlingMasks[56] = 15 & ~BLACK_QUEEN_SIDE;
+        castlingMasks[63] = 15 & ~BLACK_KING_SIDE;
+        castlingMasks[60] = 15 & ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+    }
+
+    /**
+     * The zobrist object containing the pseudorandom numbers used, created with the same seed as the Board's so the keys match.
+     */
+    private static final Zobrist zobrist = Zobrist.getInstance();
+
+    /**
+     * The bitboard of each piece type of each colour, indexed by colour * 6 + pieceNum.
+     */
+    private final long[] pieceBitBoards = new long[12];
+
+    /**
+     * The bitboard of all the squares occupied by each colour.
+     */
+    private final long[] colourBitBoards = new long[2];
+
+    /**
+     * The bitboard of all the occupied squares.
+     */
+    private long occupied;
+
+    /**
+     * The piece index on each square, or EMPTY, so the piece on a square can be found without checking every bitboard.
+     */
+    private final int[] squares = new int[64];
+
+    /**
+     * The colour to move (0 white, 1 black).
+     */
+    private int colourToMove = WHITE;
+
+    /**
+     * The castling rights as a 4 bit number, the same as Board.getCastlingState.
+     */
+    private int castlingRights;
+
+    /**
+     * The square a pawn can move to when capturing en passant, or -1 if there isn't one.
+     * Like the Board, it is only set when an opposing pawn is next to the pawn that moved 2 squares.
+     */
+    private int enPassantSquare = -1;
+
+    /**
+     * The number of half moves, to enforce the fifty move rule.
+     */
+    private int fiftyMoveCounter;
+
+    /**
+     * The number of full moves, starting from 1 and incremented after every black move.
+     */
+    private int fullMoveCounter = 1;
+
+    /**
+     * The zobrist hash code of the current position, equal to the Board's key for the same position.
+     */
+    private long zobristKey;
+
+    /**
+     * The moves that have been made, so they can be undone.
+     */
+    private final int[] moveHistory = new int[MAX_MOVES];
+
+    /**
+     * The piece captured by each move made, or EMPTY.
+     */
+    private final int[] capturedHistory = new int[MAX_MOVES];
+
+    /**
+     * The castling rights before each move made.
+     */
+    private final int[] castlingHistory = new int[MAX_MOVES];
+
+    /**
+     * The en passant square before each move made.
+     */
+    private final int[] enPassantHistory = new int[MAX_MOVES];
+
+    /**
+     * The fifty move counter before each move made.
+     */
+    private final int[] fiftyMoveHistory = new int[MAX_MOVES];
+
+    /**
+     * The zobrist key before each move made.
+     */
+    private final long[] zobristHistory = new long[MAX_MOVES];
+
+    /**
+     * The number of moves made that haven't been undone.
+     */
+    private int historyCount = 0;
+
+    /**
+     * The material gained after each capture of an exchange, reused by every static exchange evaluation.
+     * There can't be more captures on one square than pieces on the board.
+     */
+    private final int[] exchangeGains = new int[33];
+
+    /**
+     * Constructor to create a new empty bitboard, where white starts first.
+     */
+    public BitBoard() {
+        Arrays.fill(squares, EMPTY);
+    }
+
+    /**
+     * Constructor to create a bitboard of the same position as the Board given.
+     * @param board The board the position is copied from.
+     */
+    public BitBoard(Board board) {
+        this();
+        for (Piece p: board.pieces) {
+            addPiece(pieceIndex(p.getColour() == Colour.WHITE ? WHITE : BLACK, p.pieceNum), p.getRow() * 8 + p.getCol());
+        }
+        colourToMove = board.getColourToMove() == Colour.WHITE ? WHITE : BLACK;
+        castlingRights = board.getCastlingState();
+        if (!board.enPassantMoves.isEmpty()) {
+            Cell cell = board.enPassantMoves.getFirst().cell();
+            enPassantSquare = cell.getRow() * 8 + cell.getCol();
+        }
+        fiftyMoveCounter = board.getFiftyMoveCounter();
+        fullMoveCounter = board.getFullMoveCounter();
+        zobristKey = calculateZobristKey();
+    }
+
+    /**
+     * Constructor to create a copy of another bitboard, including its move history so the moves can still be undone.
+     * @param other The bitboard being copied.
+     */
+    public BitBoard(BitBoard other) {
+        System.arraycopy(other.pieceBitBoards, 0, pieceBitBoards, 0, pieceBitBoards.length);
+        System.arraycopy(other.colourBitBoards, 0, colourBitBoards, 0, colourBitBoards.length);
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        occupied = other.occupied;
+        colourToMove = other.colourToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        fiftyMoveCounter = other.fiftyMoveCounter;
+        fullMoveCounter = other.fullMoveCounter;
+        zobristKey = other.zobristKey;
+        historyCount = other.historyCount;
+        System.arraycopy(other.moveHistory, 0, moveHistory, 0, historyCount);
+        System.arraycopy(other.capturedHistory, 0, capturedHistory, 0, historyCount);
+        System.arraycopy(other.castlingHistory, 0, castlingHistory, 0, historyCount);
+        System.arraycopy(other.enPassantHistory, 0, enPassantHistory, 0, historyCount);
+        System.arraycopy(other.fiftyMoveHistory, 0, fiftyMoveHistory, 0, historyCount);
+        System.arraycopy(other.zobristHistory, 0, zobristHistory, 0, historyCount);
+    }
+
+    /**
+     * Creates a bitboard from a FEN string, where the sections can be separated by spaces or '_' like Board.getFEN.
+     * @param fen The FEN string of the position.
+     * @return The bitboard of the position.
+     * @throws IllegalArgumentException error if the FEN string has an invalid piece character.
+     */
+    public static BitBoard fromFEN(String fen) {
+        BitBoard bitBoard = new BitBoard();
+        String[] parts = fen.trim().split("[ _]+");
+
+        int row = 7;
+        int col = 0;
+        for (char c : parts[0].toCharArray()) {
+            if (c == '/') {
+                row--;
+                col = 0;
+            } else if (Character.isDigit(c)) {
+                col += c - '0';
+            } else {
+                int pieceNum = "pnbrqk".indexOf(Character.toLowerCase(c));
+                if (pieceNum == -1) throw new IllegalArgumentException("Invalid FEN piece: " + c);
+                bitBoard.addPiece(pieceIndex(Character.isUpperCase(c) ? WHITE : BLACK, pieceNum), row * 8 + col);
+                col++;
+            }
+        }
+
+        if (parts.length > 1) bitBoard.colourToMove = parts[1].equals("b") ? BLACK : WHITE;
+        if (parts.length > 2) {
+            for (char c : parts[2].toCharArray()) {
+                switch (c) {
+                    case 'K' -> bitBoard.castlingRights |= WHITE_KING_SIDE;
+                    case 'Q' -> bitBoard.castlingRights |= WHITE_QUEEN_SIDE;
+                    case 'k' -> bitBoard.castlingRights |= BLACK_KING_SIDE;
+                    case 'q' -> bitBoard.castlingRights |= BLACK_QUEEN_SIDE;
+                }
+            }
+        }
+        if (parts.length > 3 && !parts[3].equals("-")) {
+            int square = (parts[3].charAt(1) - '1') * 8 + parts[3].charAt(0) - 'a';
+            // only keep the square if a pawn can capture onto it, the same as the Board
+            if ((Attacks.pawnAttacks[bitBoard.colourToMove ^ 1][square] & bitBoard.pieceBitBoards[pieceIndex(bitBoard.colourToMove, PAWN)]) != 0) {
+                bitBoard.enPassantSquare = square;
+            }
+        }
+        if (parts.length > 4) bitBoard.fiftyMoveCounter = Integer.parseInt(parts[4]);
+        if (parts.length > 5) bitBoard.fullMoveCounter = Integer.parseInt(parts[5]);
+
+        bitBoard.zobristKey = bitBoard.calculateZobristKey();
+        return bitBoard;
+    }
+
+    /**
+     * @param colour The colour of the piece (0 white, 1 black).
+     * @param pieceNum The number for the piece type.
+     * @return The index of the piece into the piece bitboards.
+     */
+    public static int pieceIndex(int colour, int pieceNum) {
+        return colour * 6 + pieceNum;
+    }
+
+    /**
+     * Adds a piece to the bitboards and the squares array, without updating the zobrist key.
+     * @param piece The piece index (colour * 6 + pieceNum).
+     * @param square The square the piece is added to.
+     */
+    private void addPiece(int piece, int square) {
+        long bit = 1L << square;
+        pieceBitBoards[piece] |= bit;
+        colourBitBoards[piece / 6] |= bit;
+        occupied |= bit;
+        squares[square] = piece;
+    }
+
+    /**
+     * Removes the piece on the square from the bitboards and the squares array, without updating the zobrist key.
+     * @param square The square the piece is removed from.
+     * @return The piece index that was removed.
+     */
+    private int removePiece(int square) {
+        int piece = squares[square];
+        long bit = 1L << square;
+        pieceBitBoards[piece] &= ~bit;
+        colourBitBoards[piece / 6] &= ~bit;
+        occupied &= ~bit;
+        squares[square] = EMPTY;
+        return piece;
+    }
+
+    /**
+     * Moves a piece between 2 squares, updating the zobrist key.
+     * @param from The square the piece is moving from.
+     * @param to The square the piece is moving to, which must be empty.
+     */
+    private void shiftPiece(int from, int to) {
+        int piece = squares[from];
+        long bits = (1L << from) | (1L << to);
+        pieceBitBoards[piece] ^= bits;
+        colourBitBoards[piece / 6] ^= bits;
+        occupied ^= bits;
+        squares[from] = EMPTY;
+        squares[to] = piece;
+        zobristKey ^= zobrist.pieces[piece % 6][piece / 6][from] ^ zobrist.pieces[piece % 6][piece / 6][to];
+    }
+
+    /**
+     * Makes the move on the board, storing what is needed to undo it.
+     * @param move The packed legal move, as generated by generateMoves.
+     */
+    public void makeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flag = PackedMove.flag(move);
+        int us = colourToMove;
+        int them = us ^ 1;
+        int piece = squares[from];
+
+        moveHistory[historyCount] = move;
+        castlingHistory[historyCount] = castlingRights;
+        enPassantHistory[historyCount] = enPassantSquare;
+        fiftyMoveHistory[historyCount] = fiftyMoveCounter;
+        zobristHistory[historyCount] = zobristKey;
+
+        zobristKey ^= zobrist.castlingRights[castlingRights];
+        if (enPassantSquare != -1) zobristKey ^= zobrist.enPassantFile[0] ^ zobrist.enPassantFile[(enPassantSquare & 7) + 1];
+        enPassantSquare = -1;
+        fiftyMoveCounter++;
+
+        int captured = EMPTY;
+        if (flag == PackedMove.EN_PASSANT) {
+            int targetSquare = to ^ 8;
+            captured = removePiece(targetSquare);
+            zobristKey ^= zobrist.pieces[PAWN][them][targetSquare];
+        } else if (squares[to] != EMPTY) {
+            captured = removePiece(to);
+            zobristKey ^= zobrist.pieces[captured % 6][them][to];
+        }
+        capturedHistory[historyCount] = captured;
+        historyCount++;
+
+        if (PackedMove.isPromotion(move)) {
+            removePiece(from);
+            int promotionPiece = pieceIndex(us, PackedMove.promotionPiece(move));
+            addPiece(promotionPiece, to);
+            zobristKey ^= zobrist.pieces[PAWN][us][from] ^ zobrist.pieces[promotionPiece % 6][us][to];
+        } else {
+            shiftPiece(from, to);
+            if (flag == PackedMove.KING_CASTLE) shiftPiece(to + 1, to - 1);
+            else if (flag == PackedMove.QUEEN_CASTLE) shiftPiece(to - 2, to + 1);
+            else if (flag == PackedMove.DOUBLE_PAWN_PUSH) {
+                int square = (from + to) >>> 1;
+                if ((Attacks.pawnAttacks[us][square] & pieceBitBoards[pieceIndex(them, PAWN)]) != 0) {
+                    enPassantSquare = square;
+                    zobristKey ^= zobrist.enPassantFile[0] ^ zobrist.enPassantFile[(square & 7) + 1];
+                }
+            }
+        }
+
+        castlingRights &= castlingMasks[from] & castlingMasks[to];
+        zobristKey ^= zobrist.castlingRights[castlingRights];
+
+        if (piece % 6 == PAWN || captured != EMPTY) fiftyMoveCounter = 0;
+        if (us == BLACK) fullMoveCounter++;
+        colourToMove = them;
+        zobristKey ^= zobrist.blackToMove;
+    }
+
+    /**
+     * Undoes the previous move, reverting all states to the previous ones using the stored history.
+     * @throws IllegalStateException error if no move has been made.
+     */
+    public void undoMove() {
+        if (historyCount == 0) throw new IllegalStateException("No move to undo, as no move has been performed yet");
+        historyCount--;
+        int move = moveHistory[historyCount];
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flag = PackedMove.flag(move);
+        colourToMove ^= 1;
+        int us = colourToMove;
+
+        if (PackedMove.isPromotion(move)) {
+            removePiece(to);
+            addPiece(pieceIndex(us, PAWN), from);
+        } else {
+            shiftPiece(to, from);
+            if (flag == PackedMove.KING_CASTLE) shiftPiece(to - 1, to + 1);
+            else if (flag == PackedMove.QUEEN_CASTLE) shiftPiece(to + 1, to - 2);
+        }
+
+        int captured = capturedHistory[historyCount];
+        if (captured != EMPTY) addPiece(captured, flag == PackedMove.EN_PASSANT ? to ^ 8 : to);
+
+        if (us == BLACK) fullMoveCounter--;
+        castlingRights = castlingHistory[historyCount];
+        enPassantSquare = enPassantHistory[historyCount];
+        fiftyMoveCounter = fiftyMoveHistory[historyCount];
+        zobristKey = zobristHistory[historyCount];
+    }
+
+    /**
+     * Passes the move to the other colour without moving a piece, for null move pruning in the search.
+     * The en passant square is removed, as it can't be captured after passing, and the zobrist key is updated.
+     * It is stored in the undo history as PackedMove.NONE, so getPreviousMove returns PackedMove.NONE after it.
+     * It shouldn't be made when the colour to move is in check.
+     */
+    public void makeNullMove() {
+        moveHistory[historyCount] = PackedMove.NONE;
+        capturedHistory[historyCount] = EMPTY;
+        castlingHistory[historyCount] = castlingRights;
+        enPassantHistory[historyCount] = enPassantSquare;
+        fiftyMoveHistory[historyCount] = fiftyMoveCounter;
+        zobristHistory[historyCount] = zobristKey;
+        historyCount++;
+
+        if (enPassantSquare != -1) zobristKey ^= zobrist.enPassantFile[0] ^ zobrist.enPassantFile[(enPassantSquare & 7) + 1];
+        enPassantSquare = -1;
+        fiftyMoveCounter++;
+        if (colourToMove == BLACK) fullMoveCounter++;
+        colourToMove ^= 1;
+        zobristKey ^= zobrist.blackToMove;
+    }
+
+    /**
+     * Undoes a null move made with makeNullMove, giving the move back to the colour that passed.
+     * @throws IllegalStateException error if the last move made wasn't a null move.
+     */
+    public void undoNullMove() {
+        if (historyCount == 0 || moveHistory[historyCount - 1] != PackedMove.NONE) throw new IllegalStateException("The last move made wasn't a null move");
+        historyCount--;
+        colourToMove ^= 1;
+        if (colourToMove == BLACK) fullMoveCounter--;
+        enPassantSquare = enPassantHistory[historyCount];
+        fiftyMoveCounter = fiftyMoveHistory[historyCount];
+        zobristKey = zobristHistory[historyCount];
+    }
+
+    /**
+     * Generates all the legal moves of the colour to move, into the array given.
+     * The pieces giving check and the pinned pieces are found once, so every move generated is legal without having to make it:
+     * the king can't move onto an attacked square, when in check the other pieces must capture the checker or block the check,
+     * and pinned pieces can only move along the line between the king and the pinning piece.
+     * En passant captures are checked separately, as removing both pawns can uncover an attack along the rank.
+     * @param moves The array the packed moves are written into, which should have a length of MAX_MOVES_IN_POSITION.
+     * @return The number of moves generated.
+     */
+    public int generateMoves(int[] moves) {
+        return generateMoves(moves, 0, true, true);
+    }
+
+    /**
+     * Generates the legal captures and promotions of the colour to move, including en passant and promotions that don't capture.
+     * These are the moves searched in the quiescence search, and the first moves generated by the staged move picker.
+     * @param moves The array the packed moves are written into.
+     * @param start The index in the array to start writing the moves at.
+     * @return The index after the last move generated.
+     */
+    public int generateCaptures(int[] moves, int start) {
+        return generateMoves(moves, start, true, false);
+    }
+
+    /**
+     * Generates the legal moves of the colour to move that aren't captures or promotions, including castling.
+     * @param moves The array the packed moves are written into.
+     * @param start The index in the array to start writing the moves at.
+     * @return The index after the last move generated.
+     */
+    public int generateQuiets(int[] moves, int start) {
+        return generateMoves(moves, start, false, true);
+    }
+
+    /**
+     * Generates the legal moves of the types asked for, using the pieces giving check and the pinned pieces.
+     * @param moves The array the packed moves are written into.
+     * @param start The index in the array to start writing the moves at.
+     * @param captures If captures and promotions should be generated.
+     * @param quiets If the other moves should be generated.
+     * @return The index after the last move generated.
+     */
+    private int generateMoves(int[] moves, int start, boolean captures, boolean quiets) {
+        int count = start;
+        int us = colourToMove;
+        int them = us ^ 1;
+        int base = us * 6;
+        long enemy = colourBitBoards[them];
+        int kingSquare = getKingSquare(us);
+        long checkers = attackersTo(kingSquare, occupied) & enemy;
+        // the squares the pieces can move to for the types of move being generated
+        long targetSquares = (captures ? enemy : 0) | (quiets ? ~occupied : 0);
+
+        // king, checking the squares with the king removed so it can't step back along the line of a sliding check
+        long kingTargets = Attacks.kingAttacks[kingSquare] & targetSquares;
+        long occupiedWithoutKing = occupied ^ (1L << kingSquare);
+        while (kingTargets != 0) {
+            int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if (!isSquareAttacked(to, them, occupiedWithoutKing)) {
+                moves[count++] = PackedMove.encode(kingSquare, to, ((enemy >>> to) & 1) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET);
+            }
+        }
+        // in double check only the king can move
+        if ((checkers & (checkers - 1)) != 0) return count;
+
+        // the squares the other pieces can move to, to capture the checker or block the check
+        long checkMask = checkers == 0 ? -1L : checkers | Attacks.between[kingSquare][Long.numberOfTrailingZeros(checkers)];
+        long pinned = pinnedPieces(kingSquare, us);
+
+        // pawns
+        long pawns = pieceBitBoards[base + PAWN];
+        long promotionRank = us == WHITE ? 0xFF00_0000_0000_0000L : 0xFFL;
+        long startRank = us == WHITE ? 0xFF00L : 0x00FF_0000_0000_0000L;
+        int forward = us == WHITE ? 8 : -8;
+        long pawnsLeft = pawns;
+        while (pawnsLeft != 0) {
+            int from = Long.numberOfTrailingZeros(pawnsLeft);
+            pawnsLeft &= pawnsLeft - 1;
+            long allowed = checkMask;
+            if (((pinned >>> from) & 1) != 0) allowed &= Attacks.line[kingSquare][from];
+
+            long targets = captures ? Attacks.pawnAttacks[us][from] & enemy : 0;
+            int singlePush = from + forward;
+            if (((occupied >>> singlePush) & 1) == 0) {
+                // pushes onto the last rank are promotions, so they are generated with the captures
+                if (((promotionRank >>> singlePush) & 1) != 0 ? captures : quiets) targets |= 1L << singlePush;
+                int doublePush = singlePush + forward;
+                if (quiets && ((startRank >>> from) & 1) != 0 && ((occupied >>> doublePush) & 1) == 0 && ((allowed >>> doublePush) & 1) != 0) {
+                    moves[count++] = PackedMove.encode(from, doublePush, PackedMove.DOUBLE_PAWN_PUSH);
+                }
+            }
+            targets &= allowed;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                boolean capture = ((enemy >>> to) & 1) != 0;
+                if (((promotionRank >>> to) & 1) != 0) {
+                    count = addPromotions(moves, count, from, to, capture ? PackedMove.PROMOTION_CAPTURE : PackedMove.PROMOTION);
+                } else {
+                    moves[count++] = PackedMove.encode(from, to, capture ? PackedMove.CAPTURE : PackedMove.QUIET);
+                }
+            }
+        }
+        if (captures && enPassantSquare != -1) {
+            int targetSquare = enPassantSquare ^ 8;
+            long attackers = Attacks.pawnAttacks[them][enPassantSquare] & pawns;
+            while (attackers != 0) {
+                int from = Long.numberOfTrailingZeros(attackers);
+                attackers &= attackers - 1;
+                if (isLegalEnPassant(from, targetSquare, kingSquare, checkMask)) {
+                    moves[count++] = PackedMove.encode(from, enPassantSquare, PackedMove.EN_PASSANT);
+                }
+            }
+        }
+
+        // pieces, where pinned knights can never move
+        long knights = pieceBitBoards[base + KNIGHT] & ~pinned;
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count = addMoves(moves, count, from, Attacks.knightAttacks[from] & targetSquares & checkMask, enemy);
+        }
+        long bishops = pieceBitBoards[base + BISHOP] | pieceBitBoards[base + QUEEN];
+        while (bishops != 0) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            long allowed = ((pinned >>> from) & 1) != 0 ? checkMask & Attacks.line[kingSquare][from] : checkMask;
+            count = addMoves(moves, count, from, Attacks.bishopAttacks(from, occupied) & targetSquares & allowed, enemy);
+        }
+        long rooks = pieceBitBoards[base + ROOK] | pieceBitBoards[base + QUEEN];
+        while (rooks != 0) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            long allowed = ((pinned >>> from) & 1) != 0 ? checkMask & Attacks.line[kingSquare][from] : checkMask;
+            count = addMoves(moves, count, from, Attacks.rookAttacks(from, occupied) & targetSquares & allowed, enemy);
+        }
+
+        // castling, which can't be done out of, through or into check
+        int kingSide = us == WHITE ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+        int queenSide = us == WHITE ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+        if (quiets && (castlingRights & (kingSide | queenSide)) != 0 && checkers == 0) {
+            if ((castlingRights & kingSide) != 0 && (occupied & (0x60L << (kingSquare - 4))) == 0
+                    && !isSquareAttacked(kingSquare + 1, them) && !isSquareAttacked(kingSquare + 2, them)) {
+                moves[count++] = PackedMove.encode(kingSquare, kingSquare + 2, PackedMove.KING_CASTLE);
+            }
+            if ((castlingRights & queenSide) != 0 && (occupied & (0x0EL << (kingSquare - 4))) == 0
+                    && !isSquareAttacked(kingSquare - 1, them) && !isSquareAttacked(kingSquare - 2, them)) {
+                moves[count++] = PackedMove.encode(kingSquare, kingSquare - 2, PackedMove.QUEEN_CASTLE);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if a packed move from somewhere else, such as a killer move from another position, is legal in the current position,
+     * without generating all the moves.
+     * It first checks the piece can make the move in the current position, and then makes the move to check the king isn't left in check.
+     * @param move The packed move, which can be any int.
+     * @return If the move is legal, and so would be generated by generateMoves.
+     */
+    public boolean isLegal(int move) {
+        if (move == PackedMove.NONE) return false;
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flag = PackedMove.flag(move);
+        int piece = squares[from];
+        int us = colourToMove;
+        int them = us ^ 1;
+        if (piece == EMPTY || piece / 6 != us || ((colourBitBoards[us] >>> to) & 1) != 0) return false;
+        int pieceNum = piece % 6;
+        int forward = us == WHITE ? 8 : -8;
+        boolean toPromotionRank = (to >>> 3) == (us == WHITE ? 7 : 0);
+
+        if (flag == PackedMove.KING_CASTLE || flag == PackedMove.QUEEN_CASTLE) {
+            if (pieceNum != KING || isInCheck()) return false;
+            boolean kingSide = flag == PackedMove.KING_CASTLE;
+            int right = kingSide ? (us == WHITE ? WHITE_KING_SIDE : BLACK_KING_SIDE) : (us == WHITE ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE);
+            long path = kingSide ? 0x60L << (from - 4) : 0x0EL << (from - 4);
+            int step = kingSide ? 1 : -1;
+            return (castlingRights & right) != 0 && to == from + 2 * step && (occupied & path) == 0
+                    && !isSquareAttacked(from + step, them) && !isSquareAttacked(to, them);
+        }
+
+        boolean capture = ((colourBitBoards[them] >>> to) & 1) != 0;
+        if (flag > PackedMove.EN_PASSANT && !PackedMove.isPromotion(move)) {
+            return false;
+        } else if (flag == PackedMove.EN_PASSANT) {
+            if (pieceNum != PAWN || to != enPassantSquare || (Attacks.pawnAttacks[us][from] & (1L << to)) == 0) return false;
+        } else if (PackedMove.isCapture(move) != capture) {
+            return false;
+        } else if (pieceNum == PAWN) {
+            if (PackedMove.isPromotion(move) != toPromotionRank) return false;
+            if (capture) {
+                if ((Attacks.pawnAttacks[us][from] & (1L << to)) == 0) return false;
+            } else if (flag == PackedMove.DOUBLE_PAWN_PUSH) {
+                if ((from >>> 3) != (us == WHITE ? 1 : 6) || to != from + 2 * forward || ((occupied >>> (from + forward)) & 1) != 0) return false;
+            } else if (to != from + forward) {
+                return false;
+            }
+        } else {
+            if (flag != PackedMove.QUIET && flag != PackedMove.CAPTURE) return false;
+            long attacks = switch (pieceNum) {
+                case KNIGHT -> Attacks.knightAttacks[from];
+                case BISHOP -> Attacks.bishopAttacks(from, occupied);
+                case ROOK -> Attacks.rookAttacks(from, occupied);
+                case QUEEN -> Attacks.queenAttacks(from, occupied);
+                default -> Attacks.kingAttacks[from];
+            };
+            if ((attacks & (1L << to)) == 0) return false;
+        }
+
+        makeMove(move);
+        boolean legal = !isSquareAttacked(getKingSquare(us), them);
+        undoMove();
+        return legal;
+    }
+
+    /**
+     * Finds the pieces of the colour given that are pinned to their king.
+     * The sliding pieces of the other colour are looked for from the king, seeing through the king's own pieces,
+     * and any with exactly one piece between them and the king pin it.
+     * @param kingSquare The square of the king.
+     * @param us The colour of the king (0 white, 1 black).
+     * @return The bitboard of the pinned pieces.
+     */
+    private long pinnedPieces(int kingSquare, int us) {
+        int themBase = (us ^ 1) * 6;
+        long enemy = colourBitBoards[us ^ 1];
+        long queens = pieceBitBoards[themBase + QUEEN];
+        long pinners = (Attacks.rookAttacks(kingSquare, enemy) & (pieceBitBoards[themBase + ROOK] | queens))
+                | (Attacks.bishopAttacks(kingSquare, enemy) & (pieceBitBoards[themBase + BISHOP] | queens));
+        long pinned = 0;
+        while (pinners != 0) {
+            int pinner = Long.numberOfTrailingZeros(pinners);
+            pinners &= pinners - 1;
+            long blockers = Attacks.between[kingSquare][pinner] & occupied;
+            if ((blockers & (blockers - 1)) == 0) pinned |= blockers & colourBitBoards[us];
+        }
+        return pinned;
+    }
+
+    /**
+     * Checks if an en passant capture is legal, by removing both pawns and checking the king isn't attacked by a sliding piece.
+     * This covers pinned pawns, and the case where both pawns are between the king and a rook or queen on the same rank.
+     * @param from The square the capturing pawn is on.
+     * @param targetSquare The square the captured pawn is on.
+     * @param kingSquare The square of the king of the colour to move.
+     * @param checkMask The squares a move must land on to get out of check.
+     * @return If the en passant capture is legal.
+     */
+    private boolean isLegalEnPassant(int from, int targetSquare, int kingSquare, long checkMask) {
+        // in check, the captured pawn must be the checker, or the pawn must block the check
+        if (((checkMask >>> targetSquare) & 1) == 0 && ((checkMask >>> enPassantSquare) & 1) == 0) return false;
+        int themBase = (colourToMove ^ 1) * 6;
+        long queens = pieceBitBoards[themBase + QUEEN];
+        long occupiedAfter = (occupied ^ (1L << from) ^ (1L << targetSquare)) | (1L << enPassantSquare);
+        return (Attacks.rookAttacks(kingSquare, occupiedAfter) & (pieceBitBoards[themBase + ROOK] | queens)) == 0
+                && (Attacks.bishopAttacks(kingSquare, occupiedAfter) & (pieceBitBoards[themBase + BISHOP] | queens)) == 0;
+    }
+
+    /**
+     * Adds a move to each of the target squares, flagging the ones with an enemy piece as captures.
+     * @param moves The array the packed moves are written into.
+     * @param count The number of moves already in the array.
+     * @param from The square the piece is moving from.
+     * @param targets The bitboard of the squares the piece can move to.
+     * @param enemy The bitboard of the squares occupied by the opposite colour.
+     * @return The new number of moves in the array.
+     */
+    private static int addMoves(int[] moves, int count, int from, long targets, long enemy) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[count++] = PackedMove.encode(from, to, ((enemy >>> to) & 1) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET);
+        }
+        return count;
+    }
+
+    /**
+     * Adds a promotion move for each piece a pawn can promote to, with the queen first.
+     * @param moves The array the packed moves are written into.
+     * @param count The number of moves already in the array.
+     * @param from The square the pawn is moving from.
+     * @param to The square the pawn is moving to.
+     * @param flag PROMOTION or PROMOTION_CAPTURE.
+     * @return The new number of moves in the array.
+     */
+    private static int addPromotions(int[] moves, int count, int from, int to, int flag) {
+        for (int promotionPiece = QUEEN; promotionPiece >= KNIGHT; promotionPiece--) {
+            moves[count++] = PackedMove.encode(from, to, flag | (promotionPiece - 1));
+        }
+        return count;
+    }
+
+    /**
+     * Creates a new zobrist hash code from scratch, in the same way as the Board's incremental updates,
+     * so that the keys can be used with the openings book.
+     * @return The zobrist hash code of the current position.
+     */
+    private long calculateZobristKey() {
+        long key = 0;
+        for (int square = 0; square < 64; square++) {
+            int piece = squares[square];
+            if (piece != EMPTY) key ^= zobrist.pieces[piece % 6][piece / 6][square];
+        }
+        key ^= zobrist.castlingRights[castlingRights];
+        if (enPassantSquare != -1) key ^= zobrist.enPassantFile[0] ^ zobrist.enPassantFile[(enPassantSquare & 7) + 1];
+        if (colourToMove == BLACK) key ^= zobrist.blackToMove;
+        return key;
+    }
+
+    /**
+     * Works out the material gained by the colour to move from a move, if both colours then keep capturing on the to square
+     * with their least valuable piece for as long as it gains material (static exchange evaluation).
+     * Sliding pieces behind other attackers (x-rays) join the exchange once the pieces in front of them have captured.
+     * Pins are ignored, but the king only captures if the square isn't attacked by the other colour any more.
+     * @param move The packed move, which should be legal in the current position.
+     * @return The material gained from the exchange, using SEE_VALUES, which is negative if the move loses material.
+     */
+    public int staticExchangeEvaluation(int move) {
+        if (PackedMove.isCastling(move)) return 0;
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int[] gains = exchangeGains;
+
+        int attackerValue = SEE_VALUES[squares[from] % 6];
+        long occupiedNow = occupied ^ (1L << from);
+        if (PackedMove.flag(move) == PackedMove.EN_PASSANT) {
+            gains[0] = SEE_VALUES[PAWN];
+            occupiedNow ^= 1L << (to ^ 8);
+        } else {
+            gains[0] = squares[to] == EMPTY ? 0 : SEE_VALUES[squares[to] % 6];
+        }
+        if (PackedMove.isPromotion(move)) {
+            int promotionValue = SEE_VALUES[PackedMove.promotionPiece(move)];
+            gains[0] += promotionValue - SEE_VALUES[PAWN];
+            attackerValue = promotionValue;
+        }
+
+        long bishopsQueens = pieceBitBoards[BISHOP] | pieceBitBoards[QUEEN] | pieceBitBoards[6 + BISHOP] | pieceBitBoards[6 + QUEEN];
+        long rooksQueens = pieceBitBoards[ROOK] | pieceBitBoards[QUEEN] | pieceBitBoards[6 + ROOK] | pieceBitBoards[6 + QUEEN];
+        long attackers = attackersTo(to, occupiedNow) & occupiedNow;
+        int side = colourToMove ^ 1;
+        int depth = 0;
+        while (true) {
+            depth++;
+            // the gain if the piece that just captured is captured back
+            gains[depth] = attackerValue - gains[depth - 1];
+            // neither side can gain by continuing the exchange
+            if (Math.max(-gains[depth - 1], gains[depth]) < 0) break;
+
+            long sideAttackers = attackers & colourBitBoards[side];
+            if (sideAttackers == 0) break;
+            int pieceNum = PAWN;
+            long attacker = sideAttackers & pieceBitBoards[side * 6 + PAWN];
+            while (attacker == 0) {
+                pieceNum++;
+                attacker = sideAttackers & pieceBitBoards[side * 6 + pieceNum];
+            }
+            // the king can't capture onto a square the other colour still attacks
+            if (pieceNum == KING && (attackers & colourBitBoards[side ^ 1]) != 0) break;
+
+            occupiedNow ^= attacker & -attacker;
+            // pieces behind the one that captured can now attack the square
+            if (pieceNum == PAWN || pieceNum == BISHOP || pieceNum == QUEEN) attackers |= Attacks.bishopAttacks(to, occupiedNow) & bishopsQueens;
+            if (pieceNum == ROOK || pieceNum == QUEEN) attackers |= Attacks.rookAttacks(to, occupiedNow) & rooksQueens;
+            attackers &= occupiedNow;
+            attackerValue = SEE_VALUES[pieceNum];
+            side ^= 1;
+        }
+        // work back through the exchange, where each side can choose to stop capturing
+        while (--depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+        }
+        return gains[0];
+    }
+
+    /**
+     * Gets the bitboard of all the pieces that attack the square, of both colours.
+     * @param square The square being attacked.
+     * @param occupied The bitboard of the occupied squares to use for the sliding pieces.
+     * @return The bitboard of the squares of all the pieces attacking the square.
+     */
+    public long attackersTo(int square, long occupied) {
+        long bishopsQueens = pieceBitBoards[BISHOP] | pieceBitBoards[QUEEN] | pieceBitBoards[6 + BISHOP] | pieceBitBoards[6 + QUEEN];
+        long rooksQueens = pieceBitBoards[ROOK] | pieceBitBoards[QUEEN] | pieceBitBoards[6 + ROOK] | pieceBitBoards[6 + QUEEN];
+        return (Attacks.pawnAttacks[BLACK][square] & pieceBitBoards[PAWN])
+                | (Attacks.pawnAttacks[WHITE][square] & pieceBitBoards[6 + PAWN])
+                | (Attacks.knightAttacks[square] & (pieceBitBoards[KNIGHT] | pieceBitBoards[6 + KNIGHT]))
+                | (Attacks.kingAttacks[square] & (pieceBitBoards[KING] | pieceBitBoards[6 + KING]))
+                | (Attacks.bishopAttacks(square, occupied) & bishopsQueens)
+                | (Attacks.rookAttacks(square, occupied) & rooksQueens);
+    }
+
+    /**
+     * Checks if any piece of the colour given attacks the square.
+     * @param square The square being attacked.
+     * @param byColour The colour of the attacking pieces (0 white, 1 black).
+     * @return If the square is attacked by the colour.
+     */
+    public boolean isSquareAttacked(int square, int byColour) {
+        return isSquareAttacked(square, byColour, occupied);
+    }
+
+    /**
+     * Checks if any piece of the colour given attacks the square, with the sliding pieces blocked by the occupied squares given.
+     * @param square The square being attacked.
+     * @param byColour The colour of the attacking pieces (0 white, 1 black).
+     * @param occupied The bitboard of the occupied squares to use for the sliding pieces.
+     * @return If the square is attacked by the colour.
+     */
+    private boolean isSquareAttacked(int square, int byColour, long occupied) {
+        int base = byColour * 6;
+        if ((Attacks.pawnAttacks[byColour ^ 1][square] & pieceBitBoards[base + PAWN]) != 0) return true;
+        if ((Attacks.knightAttacks[square] & pieceBitBoards[base + KNIGHT]) != 0) return true;
+        if ((Attacks.kingAttacks[square] & pieceBitBoards[base + KING]) != 0) return true;
+        long queens = pieceBitBoards[base + QUEEN];
+        if ((Attacks.bishopAttacks(square, occupied) & (pieceBitBoards[base + BISHOP] | queens)) != 0) return true;
+        return (Attacks.rookAttacks(square, occupied) & (pieceBitBoards[base + ROOK] | queens)) != 0;
+    }
+
+    /**
+     * @param colour The colour of the king (0 white, 1 black).
+     * @return The square the king of that colour is on.
+     */
+    public int getKingSquare(int colour) {
+        return Long.numberOfTrailingZeros(pieceBitBoards[colour * 6 + KING]);
+    }
+
+    /**
+     * @return If the king of the current colour to move is in check.
+     */
+    public boolean isInCheck() {
+        return isSquareAttacked(getKingSquare(colourToMove), colourToMove ^ 1);
+    }
+
+    /**
+     * @param piece The piece index (colour * 6 + pieceNum).
+     * @return The bitboard of the squares containing that piece.
+     */
+    public long getPieceBitBoard(int piece) {
+        return pieceBitBoards[piece];
+    }
+
+    /**
+     * @param colour The colour (0 white, 1 black).
+     * @return The bitboard of the squares occupied by that colour.
+     */
+    public long getColourBitBoard(int colour) {
+        return colourBitBoards[colour];
+    }
+
+    /**
+     * @return The bitboard of all the occupied squares.
+     */
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * @param square The square (0 to 63 inclusive).
+     * @return The piece index on the square, or EMPTY.
+     */
+    public int getPiece(int square) {
+        return squares[square];
+    }
+
+    /**
+     * @return The colour to move (0 white, 1 black).
+     */
+    public int getSideToMove() {
+        return colourToMove;
+    }
+
+    /**
+     * @return The colour to move as a Colour.
+     */
+    public Colour getColourToMove() {
+        return colourToMove == WHITE ? Colour.WHITE : Colour.BLACK;
+    }
+
+    /**
+     * @return The castling rights as a 4 bit number (KQkq).
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return The en passant target square, or -1 if there isn't one.
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * @return The number of half moves, to enforce the fifty move rule.
+     */
+    public int getFiftyMoveCounter() {
+        return fiftyMoveCounter;
+    }
+
+    /**
+     * @return The number of full moves, starting from 1 and incremented after every black move.
+     */
+    public int getFullMoveCounter() {
+        return fullMoveCounter;
+    }
+
+    /**
+     * @return The zobrist hash code of the current position.
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * @return The number of pieces on the board.
+     */
+    public int getPieceCount() {
+        return Long.bitCount(occupied);
+    }
+
+    /**
+     * Gets the last move made from the undo history, without undoing it.
+     * @return The last packed move made on this bitboard, or PackedMove.NONE if no move has been made since it was created.
+     */
+    public int getPreviousMove() {
+        return historyCount == 0 ? PackedMove.NONE : moveHistory[historyCount - 1];
+    }
+}
@@ -3,6 +3,7 @@ package com.example.chessengine.Board;
 import com.example.chessengine.Board.Moves.CastlingMove;
 import com.example.chessengine.Board.Moves.EnPassantMove;
 import com.example.chessengine.Board.Moves.Move;
+import com.example.chessengine.Board.Moves.PackedMove;
 import com.example.chessengine.Board.Moves.PromotionMove;
 import com.example.chessengine.Board.Pieces.*;
 
@@ -13,14 +14,15 @@ import java.util.*;
  * It will also generate all the legal moves in the current position
  */
 public class Board{
-    public final List<Piece> pieces = new ArrayList<>(32);
+    /**
+     * All the pieces on the board, indexed by colour and piece type
+     */
+    public final PieceList pieces = new PieceList();
     /**
      * The array representation of the chessboard, where each cell can contain a piece
      */
     private final Cell[][] cells = new  Cell[8][8];
 
-    private List<Move> storedPseudoLegalMoves = new ArrayList<>();
-
     /**
      * @return The current colour of which player's turn it is to move
      */
@@ -40,15 +42,107 @@ public class Board{
      */
     private Colour colourToMove;
 
+    /**
+     * If the pieces only mark their moves lists as out of date when a cell they listen to changes, recalculating them when they are next read,
+     * instead of updating them straight away. Most moves made in a search are undone before the moves lists are ever read.
+     */
+    private boolean lazyMoveLists = true;
+
+    /**
+     * @return If the pieces recalculate their moves lists only when they are read.
+     */
+    public boolean isLazyMoveLists() {
+        return lazyMoveLists;
+    }
+
+    /**
+     * @param lazyMoveLists If the pieces should recalculate their moves lists only when they are read, instead of on every change.
+     */
+    public void setLazyMoveLists(boolean lazyMoveLists) {
+        this.lazyMoveLists = lazyMoveLists;
+    }
+
+    /**
+     * The number of pieces of each colour (0 white, 1 black) attacking each square (row * 8 + col).
+     * It is kept up to date by the pieces, as they are notified of every change to the cells they listen to.
+     */
+    private final int[][] attackCounts = new int[2][64];
+
     /**
      * A list of all pseudo legal en passant moves in the current position, so they can easily be cleared once a move has been made
      */
     public final List<EnPassantMove> enPassantMoves = new ArrayList<>();
 
     /**
-     * A list of all the UndoMoveInfo objects, containing all the previous moves, so they can be undone if needed
+     * The number of moves that have been made and can be undone.
+     * Each index below this in the undo arrays holds the information needed to revert the board to the position before that move.
+     */
+    private int undoCount = 0;
+
+    /**
+     * The moves that have been made, so they can be undone.
+     */
+    private Move[] undoMoves = new Move[256];
+
+    /**
+     * The piece captured by each move (null if none), kept so the same object can be put back when the move is undone.
+     */
+    private Piece[] undoCapturedPieces = new Piece[256];
+
+    /**
+     * The piece each promotion move promoted to (null if not a promotion), so it can be reused after the move is undone.
+     */
+    private Piece[] undoPromotionPieces = new Piece[256];
+
+    /**
+     * The square (row * 8 + col) each moved piece was moved from.
+     */
+    private int[] undoFromSquares = new int[256];
+
+    /**
+     * The half move clock before each move.
+     */
+    private int[] undoFiftyMoveCounters = new int[256];
+
+    /**
+     * The en passant file for the zobrist key before each move (0 for none, or 1-8).
+     */
+    private int[] undoEnPassantFiles = new int[256];
+
+    /**
+     * The file of the pawn just moved before each move, for the FEN string (0 for none, or 1-8).
+     */
+    private int[] undoEnPassantFilesForFEN = new int[256];
+
+    /**
+     * The castling state before each move, as the 4 bit number from getCastlingState.
+     */
+    private int[] undoCastlingStates = new int[256];
+
+    /**
+     * If each moved piece could castle before the move.
+     */
+    private boolean[] undoPieceCanCastle = new boolean[256];
+
+    /**
+     * If each captured piece could castle before the move.
+     */
+    private boolean[] undoCaptureCanCastle = new boolean[256];
+
+    /**
+     * The zobrist hash code of the position before each move.
      */
-    public final List<UndoMoveInfo> undoMoveInfoList = new ArrayList<>();
+    private long[] undoZobristKeys = new long[256];
+
+    /**
+     * The en passant moves before each move, as there can be at most 2 (null if there weren't any).
+     */
+    private EnPassantMove[] undoFirstEnPassantMoves = new EnPassantMove[256], undoSecondEnPassantMoves = new EnPassantMove[256];
+
+    /**
+     * Pieces created by promotions that have since been undone, so they can be reused by the next promotion instead of creating a new piece.
+     */
+    private final List<Piece> sparePromotionPieces = new ArrayList<>();
 
     /**
      * @return The number of half moves,to enforce the fifty move rule. Reset after pawn moves and captures.
@@ -83,12 +177,12 @@ public class Board{
     /**
      * A boolean for each castling type (KQkq - FEN equivalent)
      */
-    private boolean[] castlingState = new boolean[4];
+    private final boolean[] castlingState = new boolean[4];
 
     /**
-     * The zobrist object containing the pseudorandom numbers used
+     * The zobrist object containing the pseudorandom numbers used, shared by every board
      */
-    private final Zobrist zobrist = new Zobrist();
+    private static final Zobrist zobrist = Zobrist.getInstance();
 
     /**
      * @return The zobrist hash code of the current position
@@ -196,8 +290,7 @@ public class Board{
     public void movePiece(Move move, boolean inSearch){
         boolean capture = move.cell().isHasPiece();
         Piece p = move.p();
-        UndoMoveInfo undoMoveInfo = new UndoMoveInfo(move, enPassantMoves, fiftyMoveCounter, enPassantFile, castlingState.clone(), enPassantFileForFEN, zobristKey);
-        undoMoveInfoList.add(undoMoveInfo);
+        int undoIndex = pushUndoInfo(move);
 
         enPassantFileForFEN = 0;
 
@@ -284,10 +377,22 @@ public class Board{
         enPassantMoves.clear();
 
         if (move.getClass() == PromotionMove.class){
+            PromotionMove promotionMove = (PromotionMove) move;
+            zobristKey ^= zobrist.pieces[0][colourToMove == Colour.WHITE ? 0: 1][p.getRow() * 8 + p.getCol()];
+            if (capture) zobristKey ^= zobrist.pieces[move.cell().getPiece().pieceNum][colourToMove == Colour.WHITE ? 1: 0][move.cell().getRow() * 8 + move.cell().getCol()];
+            zobristKey ^= zobrist.pieces[promotionMove.getPromotionPieceNum()][colourToMove == Colour.WHITE ? 0: 1][move.cell().getRow() * 8 + move.cell().getCol()];
             cells[p.getRow()][p.getCol()].setPiece(null);
-            Piece promotionPiece = ((PromotionMove) move).getPromotionPiece();
-            pieces.add(promotionPiece);
-            move.cell().setPiece(promotionPiece);
+
+            Piece promotionPiece = takeSparePromotionPiece(promotionMove);
+            if (promotionPiece != null) {
+                move.cell().setPiece(promotionPiece);
+                promotionPiece.move(move.cell().getRow(), move.cell().getCol());
+            } else {
+                promotionPiece = promotionMove.getPromotionPiece();
+                pieces.add(promotionPiece);
+                move.cell().setPiece(promotionPiece);
+            }
+            undoPromotionPieces[undoIndex] = promotionPiece;
         } else {
             if (p.pieceNum == 0){
                 if (Math.abs(p.getRow() - move.cell().getRow()) == 2) {
@@ -366,8 +471,9 @@ public class Board{
      */
     public List<Move> getPseudolegalMoves() {
         List<Move> moves = new ArrayList<>(35);
-        for (Piece p: pieces){
-            if (p.getColour() == getColourToMove()) {
+        for (int pieceNum = 0; pieceNum < 6; pieceNum++){
+            for (int i = 0; i < pieces.count(colourToMove, pieceNum); i++){
+                Piece p = pieces.get(colourToMove, pieceNum, i);
                 if (p.pieceNum == 0){
                     for (Cell moveCell: p.getMovesList()){
                         if (moveCell.getRow() != 0 && moveCell.getRow() != 7) {
@@ -381,7 +487,7 @@ public class Board{
                     }
                 } else {
                     if (p instanceof SlidingPiece){
-                        for (List<Cell> movesList: ((SlidingPiece) p).movesListsFromDirections){
+                        for (List<Cell> movesList: ((SlidingPiece) p).getMovesListsFromDirections()){
                             for (Cell moveCell: movesList){
                                 moves.add(new Move(p, moveCell));
                             }
@@ -438,72 +544,152 @@ public class Board{
         return moves;
     }
 
+    /**
+     * Stores all the information needed to undo the move in the undo arrays, growing them if they are full.
+     * It must be called before the move is made.
+     * @param move The move about to be made.
+     * @return The index in the undo arrays the information was stored at.
+     */
+    private int pushUndoInfo(Move move){
+        if (undoCount == undoMoves.length) growUndoArrays();
+        int i = undoCount++;
+        Piece p = move.p();
+        Piece capture = move.getClass() == EnPassantMove.class ? ((EnPassantMove) move).getTargetPawnCell().getPiece() : move.cell().getPiece();
+
+        undoMoves[i] = move;
+        undoCapturedPieces[i] = capture;
+        undoPromotionPieces[i] = null;
+        undoFromSquares[i] = p.getRow() * 8 + p.getCol();
+        undoFiftyMoveCounters[i] = fiftyMoveCounter;
+        undoEnPassantFiles[i] = enPassantFile;
+        undoEnPassantFilesForFEN[i] = enPassantFileForFEN;
+        undoCastlingStates[i] = getCastlingState();
+        undoPieceCanCastle[i] = (p.pieceNum == 3 && ((Rook) p).isCanCastle()) || (p.pieceNum == 5 && ((King) p).isCanCastle());
+        undoCaptureCanCastle[i] = capture != null && capture.pieceNum == 3 && ((Rook) capture).isCanCastle();
+        undoZobristKeys[i] = zobristKey;
+        undoFirstEnPassantMoves[i] = !enPassantMoves.isEmpty() ? enPassantMoves.getFirst() : null;
+        undoSecondEnPassantMoves[i] = enPassantMoves.size() > 1 ? enPassantMoves.get(1) : null;
+        return i;
+    }
+
+    /**
+     * Doubles the size of all the undo arrays, for when more moves have been made than they can hold.
+     */
+    private void growUndoArrays(){
+        int size = undoMoves.length * 2;
+        undoMoves = Arrays.copyOf(undoMoves, size);
+        undoCapturedPieces = Arrays.copyOf(undoCapturedPieces, size);
+        undoPromotionPieces = Arrays.copyOf(undoPromotionPieces, size);
+        undoFromSquares = Arrays.copyOf(undoFromSquares, size);
+        undoFiftyMoveCounters = Arrays.copyOf(undoFiftyMoveCounters, size);
+        undoEnPassantFiles = Arrays.copyOf(undoEnPassantFiles, size);
+        undoEnPassantFilesForFEN = Arrays.copyOf(undoEnPassantFilesForFEN, size);
+        undoCastlingStates = Arrays.copyOf(undoCastlingStates, size);
+        undoPieceCanCastle = Arrays.copyOf(undoPieceCanCastle, size);
+        undoCaptureCanCastle = Arrays.copyOf(undoCaptureCanCastle, size);
+        undoZobristKeys = Arrays.copyOf(undoZobristKeys, size);
+        undoFirstEnPassantMoves = Arrays.copyOf(undoFirstEnPassantMoves, size);
+        undoSecondEnPassantMoves = Arrays.copyOf(undoSecondEnPassantMoves, size);
+    }
+
+    /**
+     * Finds a piece left over from an undone promotion that can be reused for the promotion move.
+     * @param promotionMove The promotion move being made.
+     * @return The spare piece of the same type and colour, removed from the spare pieces, or null if there isn't one.
+     */
+    private Piece takeSparePromotionPiece(PromotionMove promotionMove){
+        int pieceNum = promotionMove.getPromotionPieceNum();
+        Colour colour = promotionMove.p().getColour();
+        for (int i = sparePromotionPieces.size() - 1; i >= 0; i--) {
+            Piece piece = sparePromotionPieces.get(i);
+            if (piece.pieceNum == pieceNum && piece.getColour() == colour) {
+                sparePromotionPieces.remove(i);
+                return piece;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts a captured piece back onto the board in the cell given, restoring if it can castle.
+     * The piece is the same object that was captured, so no new piece needs to be created.
+     * @param capturedPiece The piece being put back.
+     * @param cell The cell the piece was captured on.
+     * @param canCastle If the piece could castle before it was captured.
+     */
+    private void restoreCapturedPiece(Piece capturedPiece, Cell cell, boolean canCastle){
+        cell.setPiece(capturedPiece);
+        if (capturedPiece.pieceNum == 3) {
+            ((Rook) capturedPiece).move(cell.getRow(), cell.getCol(), canCastle);
+        } else {
+            capturedPiece.move(cell.getRow(), cell.getCol());
+        }
+    }
+
     /**
      * Undoes the previous move, reverting all states to the previous ones.
-     * It uses the UndoMovesList objects for this, which contain all the information needed.
-     * It moves the piece previously moved back to the original square and recreates the previous piece from the information provided.
+     * It uses the undo arrays for this, which contain all the information needed.
+     * It moves the piece previously moved back to the original square and puts the captured piece back.
      */
     public void undoMove(){
-        if (undoMoveInfoList.isEmpty()) throw new NullPointerException("No undoMoveInfo, as no move has been performed yet");
-        UndoMoveInfo undoMoveInfo = undoMoveInfoList.removeLast();
-
-        enPassantFileForFEN = undoMoveInfo.enPassantFileForFEN;
-        enPassantFile = undoMoveInfo.enPassantFile;
-        fiftyMoveCounter = undoMoveInfo.fiftyMoveCounter;
+        if (undoCount == 0) throw new NullPointerException("No undo information, as no move has been performed yet");
+        int i = --undoCount;
+        Move move = undoMoves[i];
+        int row = undoFromSquares[i] / 8;
+        int col = undoFromSquares[i] % 8;
+        Piece capturedPiece = undoCapturedPieces[i];
+        undoMoves[i] = null;
+        undoCapturedPieces[i] = null;
+
+        enPassantFileForFEN = undoEnPassantFilesForFEN[i];
+        enPassantFile = undoEnPassantFiles[i];
+        fiftyMoveCounter = undoFiftyMoveCounters[i];
         enPassantMoves.clear();
-        enPassantMoves.addAll(undoMoveInfo.enPassantMoveList);
-        castlingState = undoMoveInfo.castlingState;
-        zobristKey = undoMoveInfo.zobristKey;
+        if (undoFirstEnPassantMoves[i] != null) enPassantMoves.add(undoFirstEnPassantMoves[i]);
+        if (undoSecondEnPassantMoves[i] != null) enPassantMoves.add(undoSecondEnPassantMoves[i]);
+        setCastlingState(undoCastlingStates[i]);
+        zobristKey = undoZobristKeys[i];
 
-        if (undoMoveInfo.move.getClass() == EnPassantMove.class){
-            EnPassantMove enPassantMove = (EnPassantMove) undoMoveInfo.move;
+        if (move.getClass() == EnPassantMove.class){
+            EnPassantMove enPassantMove = (EnPassantMove) move;
             enPassantMove.p().setBeingMoved(true);
-            cells[undoMoveInfo.row][undoMoveInfo.col].setPiece(enPassantMove.p());
+            cells[row][col].setPiece(enPassantMove.p());
             enPassantMove.cell().setPiece(null);
-            enPassantMove.p().move(undoMoveInfo.row, undoMoveInfo.col);
-            Pawn p = new Pawn(this, enPassantMove.getTargetPawnCell().getRow(), enPassantMove.getTargetPawnCell().getCol(), colourToMove);
-            pieces.add(p);
-            enPassantMove.getTargetPawnCell().setPiece(p);
+            enPassantMove.p().move(row, col);
+            restoreCapturedPiece(capturedPiece, enPassantMove.getTargetPawnCell(), false);
         } else {
-            Piece capturedPiece;
-            if (undoMoveInfo.captureClass == Pawn.class) {
-                capturedPiece = new Pawn(this, undoMoveInfo.move.cell().getRow(), undoMoveInfo.move.cell().getCol(), colourToMove);
-            } else if (undoMoveInfo.captureClass == Rook.class) {
-                capturedPiece = new Rook(this, undoMoveInfo.move.cell().getRow(), undoMoveInfo.move.cell().getCol(), colourToMove, undoMoveInfo.captureCanCastle);
-            } else if (undoMoveInfo.captureClass == Knight.class) {
-                capturedPiece = new Knight(this, undoMoveInfo.move.cell().getRow(), undoMoveInfo.move.cell().getCol(), colourToMove);
-            } else if (undoMoveInfo.captureClass == Bishop.class) {
-                capturedPiece = new Bishop(this, undoMoveInfo.move.cell().getRow(), undoMoveInfo.move.cell().getCol(), colourToMove);
-            } else if (undoMoveInfo.captureClass == Queen.class) {
-                capturedPiece = new Queen(this, undoMoveInfo.move.cell().getRow(), undoMoveInfo.move.cell().getCol(), colourToMove);
+            Piece movedPiece = move.p();
+            movedPiece.setBeingMoved(true);
+
+            if (capturedPiece != null) {
+                restoreCapturedPiece(capturedPiece, move.cell(), undoCaptureCanCastle[i]);
             } else {
-                capturedPiece = null;
+                move.cell().setPiece(null);
             }
 
-            if (capturedPiece != null) pieces.add(capturedPiece);
-            Piece movedPiece = undoMoveInfo.move.p();
-            movedPiece.setBeingMoved(true);
-
-            undoMoveInfo.move.cell().setPiece(capturedPiece);
+            if (undoPromotionPieces[i] != null) {
+                sparePromotionPieces.add(undoPromotionPieces[i]);
+                undoPromotionPieces[i] = null;
+            }
 
             if (movedPiece.pieceNum == 3) {
-                ((Rook) movedPiece).move(undoMoveInfo.row, undoMoveInfo.col, undoMoveInfo.pieceCanCastle);
+                ((Rook) movedPiece).move(row, col, undoPieceCanCastle[i]);
             } else if (movedPiece.pieceNum == 5) {
-                ((King) movedPiece).move(undoMoveInfo.row, undoMoveInfo.col, undoMoveInfo.pieceCanCastle);
+                ((King) movedPiece).move(row, col, undoPieceCanCastle[i]);
             } else {
-                movedPiece.move(undoMoveInfo.row, undoMoveInfo.col);
+                movedPiece.move(row, col);
             }
 
 
-            cells[undoMoveInfo.row][undoMoveInfo.col].setPiece(movedPiece);
+            cells[row][col].setPiece(movedPiece);
 
-            if (undoMoveInfo.move.getClass() == CastlingMove.class){
-                CastlingMove castlingMove = (CastlingMove) undoMoveInfo.move;
+            if (move.getClass() == CastlingMove.class){
+                CastlingMove castlingMove = (CastlingMove) move;
                 Rook rook = castlingMove.getR();
                 rook.setBeingMoved(true);
                 castlingMove.getRookCell().setPiece(null);
-                rook.move(undoMoveInfo.row, rook.getCol() == 3 ? 0 : 7, true);
-                cells[undoMoveInfo.row][rook.getCol()].setPiece(rook);
+                rook.move(row, rook.getCol() == 3 ? 0 : 7, true);
+                cells[row][rook.getCol()].setPiece(rook);
             }
         }
 
@@ -518,91 +704,103 @@ public class Board{
     }
 
     /**
-     * It first finds the king cell, and then checks if any of the moves by the pieces of the opposite colour contain the king square.
+     * It gets the king from the piece list, and then checks the attack counts of the opposite colour for the king square.
      * @return If the king of the current colour to move is in check.
      */
     public boolean isInCheck(){
-        Cell kingCell = null;
-
-        for (Piece p: pieces){
-            if (p.pieceNum == 5 && p.getColour() == getColourToMove()) {
-                kingCell = getCell(p.getRow(), p.getCol());
-                break;
-            }
-        }
+        Piece king = pieces.getKing(colourToMove);
 
-        if (kingCell == null){
+        if (king == null){
             throw new NullPointerException("no king cell");
         }
 
-        for (Piece p: pieces){
-            if (p.getColour() == colourToMove) continue;
-            if (p instanceof SlidingPiece){
-                for (List<Cell> movesList: ((SlidingPiece) p).movesListsFromDirections){
-                    if (movesList.contains(kingCell)){
-                        return true;
-                    }
-                }
-            }
-            if (p.getMovesList().contains(kingCell)) {
-                return true;
-            }
+        return isAttacked(king.getRow(), king.getCol(), colourToMove == Colour.WHITE ? Colour.BLACK : Colour.WHITE);
+    }
+
+    /**
+     * Adds and removes a piece's changed attacks from the attack counts.
+     * It is called by the pieces whenever the squares they attack change, when they are added, moved, removed,
+     * or notified of a change to a cell they listen to.
+     * @param colour The colour of the piece.
+     * @param oldAttacks The bitboard of the squares the piece used to attack.
+     * @param newAttacks The bitboard of the squares the piece now attacks.
+     */
+    public void updateAttackCounts(Colour colour, long oldAttacks, long newAttacks){
+        int[] counts = attackCounts[colour == Colour.WHITE ? 0 : 1];
+        long removed = oldAttacks & ~newAttacks;
+        long added = newAttacks & ~oldAttacks;
+        while (removed != 0){
+            counts[Long.numberOfTrailingZeros(removed)]--;
+            removed &= removed - 1;
+        }
+        while (added != 0){
+            counts[Long.numberOfTrailingZeros(added)]++;
+            added &= added - 1;
         }
-        return false;
     }
 
     /**
-     * Checks if a move is legal first by performing the move.
-     * Then it checks if any of the opposite colour pieces to the piece in the move can attack the king.
-     * Also checks for the step over square if the move is a castling move.
-     * @param move The move being checked if it is legal or not
-     * @param reset If the move should be undone after being made.
-     * @return If the move is legal or not
+     * @param row The row of the square (0 to 7 inclusive)
+     * @param col The column of the square (0 to 7 inclusive)
+     * @param colour The colour of the attacking pieces
+     * @return The number of pieces of the colour attacking the square
      */
-    public boolean checkLegalMoves(Move move, boolean reset){
-        Cell stepOverCell = null;
-        if (move.getClass() == CastlingMove.class)stepOverCell = cells[move.cell().getRow()][(move.cell().getCol() == 2) ? 3: 5];
-
-        movePiece(move, true);
+    public int getAttackCount(int row, int col, Colour colour){
+        return attackCounts[colour == Colour.WHITE ? 0 : 1][row * 8 + col];
+    }
 
-        Cell kingCell = null;
+    /**
+     * @param row The row of the square (0 to 7 inclusive)
+     * @param col The column of the square (0 to 7 inclusive)
+     * @param colour The colour of the attacking pieces
+     * @return If any piece of the colour attacks the square
+     */
+    public boolean isAttacked(int row, int col, Colour colour){
+        return attackCounts[colour == Colour.WHITE ? 0 : 1][row * 8 + col] > 0;
+    }
 
-        for (Piece p: pieces){
-            if (p.pieceNum == 5 && p.getColour() != getColourToMove()) {
-                kingCell = getCell(p.getRow(), p.getCol());
-                break;
-            }
+    /**
+     * Generates all the legal moves of the current colour to move.
+     * The position is copied into a bitboard, which generates only legal moves using the pinned pieces and the pieces giving check,
+     * so no moves need to be made on the board to test them.
+     * @return The list of legal moves of the current colour to move on the board
+     */
+    public List<Move> getLegalMoves() {
+        BitBoard bitBoard = new BitBoard(this);
+        int[] packedMoves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+        int moveCount = bitBoard.generateMoves(packedMoves);
+        List<Move> moves = new ArrayList<>(moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            moves.add(PackedMove.toMove(packedMoves[i], this));
         }
+        return moves;
+    }
 
-        storedPseudoLegalMoves = getPseudolegalMoves();
-
-        for (Move nextMove: storedPseudoLegalMoves){
-            if (nextMove.cell() == kingCell) {
-                undoMove();
-                return false;
-            }
-        }
-        if (move.getClass() == CastlingMove.class){
-            for (Move nextMove: storedPseudoLegalMoves){
-                if (nextMove.cell() == stepOverCell) {
-                    undoMove();
-                    return false;
-                }
+    /**
+     * Checks if a move is legal, by checking it is one of the legal moves generated for the position.
+     * @param move The move being checked if it is legal or not
+     * @param reset If the move should not be made on the board. If false and the move is legal it is made.
+     * @return If the move is legal or not
+     */
+    public boolean checkLegalMoves(Move move, boolean reset){
+        int packedMove = PackedMove.fromMove(move);
+        BitBoard bitBoard = new BitBoard(this);
+        int[] packedMoves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+        int moveCount = bitBoard.generateMoves(packedMoves);
+        for (int i = 0; i < moveCount; i++) {
+            if (packedMoves[i] == packedMove) {
+                if (!reset) movePiece(move, true);
+                return true;
             }
         }
-        if (reset) undoMove();
-        return true;
-    }
-
-    public List<Move> getStoredPseudoLegalMoves(){
-        return storedPseudoLegalMoves;
+        return false;
     }
 
     /**
      * Updates all the castling states.
      */
     private void updateCastlingState(){
-        castlingState = new boolean[4];
+        Arrays.fill(castlingState, false);
         if (cells[0][4].isHasPiece() && cells[0][4].getPiece().pieceNum == 5 && cells[0][4].getPiece().getColour() == Colour.WHITE){
             if (cells[0][0].isHasPiece() && cells[0][0].getPiece().pieceNum == 3 && cells[0][0].getPiece().getColour() == Colour.WHITE) castlingState[1] =  true;
             if (cells[0][7].isHasPiece() && cells[0][7].getPiece().pieceNum == 3 && cells[0][7].getPiece().getColour() == Colour.WHITE) castlingState[0] = true;
@@ -628,6 +826,17 @@ public class Board{
         return state;
     }
 
+    /**
+     * Sets all the castling states from a 4 bit number, the reverse of getCastlingState.
+     * @param state The int representation of the castling state (0 to 15).
+     */
+    private void setCastlingState(int state){
+        castlingState[0] = (state & 8) != 0;
+        castlingState[1] = (state & 4) != 0;
+        castlingState[2] = (state & 2) != 0;
+        castlingState[3] = (state & 1) != 0;
+    }
+
     /**
      * Creates a string in FEN format of the current position.
      * It uses '_' instead of ' ' between different sections, as it is used for the API calls to the tablebase
@@ -746,13 +955,7 @@ public class Board{
      * @return The number of pieces on the board.
      */
     public int getPieceCount(){
-        int count = 0;
-        for (Cell[] row: cells){
-            for (Cell cell: row){
-                if (cell.isHasPiece()) count++;
-            }
-        }
-        return count;
+        return pieces.size();
     }
 
     /**
@@ -20,9 +20,15 @@ public class Cell {
      */
     private Piece piece = null;
     /**
-     * A list of all the pieces that listen for changes to the cell
+     * The pieces that listen for changes to the cell, held in the first listenerCount places of the array.
+     * An array is used instead of a set so adding, removing and notifying the listeners is cheap, and it doubles in size if it gets full.
      */
-    private final Set<CellListener> Listener = Collections.newSetFromMap(new IdentityHashMap<>());
+    private CellListener[] listeners = new CellListener[16];
+
+    /**
+     * The number of pieces listening for changes to the cell
+     */
+    private int listenerCount = 0;
 
     /**
      * A boolean indicating if the piece in the cell isn't null
@@ -79,7 +85,11 @@ public class Cell {
      * @param l The piece wanting to be notified of changes
      */
     public void addListener(CellListener l){
-        Listener.add(l);
+        for (int i = 0; i < listenerCount; i++) {
+            if (listeners[i] == l) return;
+        }
+        if (listenerCount == listeners.length) listeners = Arrays.copyOf(listeners, listenerCount * 2);
+        listeners[listenerCount++] = l;
     }
 
     /**
@@ -87,7 +97,13 @@ public class Cell {
      * @param l The piece no longer needing to listen to this cell
      */
     public void removeListener(CellListener l){
-        Listener.remove(l);
+        for (int i = 0; i < listenerCount; i++) {
+            if (listeners[i] == l) {
+                listeners[i] = listeners[--listenerCount];
+                listeners[listenerCount] = null;
+                return;
+            }
+        }
     }
 
     /**
@@ -96,8 +112,8 @@ public class Cell {
      * @param newColour the colour of the new piece in this cell (null if it is now empty)
      */
     public void notifyListeners(Colour oldColour, Colour newColour) {
-        for(CellListener l : Listener){
-            l.CellChanged(row, col, oldColour, newColour);
+        for (int i = 0; i < listenerCount; i++) {
+            listeners[i].CellChanged(row, col, oldColour, newColour);
         }
     }
 
@@ -117,7 +133,7 @@ public class Cell {
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         Cell cell = (Cell) o;
-        return row == cell.row && col == cell.col && Objects.equals(piece, cell.piece) && Objects.equals(Listener, cell.Listener);
+        return row == cell.row && col == cell.col && Objects.equals(piece, cell.piece) && Arrays.equals(listeners, 0, listenerCount, cell.listeners, 0, cell.listenerCount);
     }
 
     /**
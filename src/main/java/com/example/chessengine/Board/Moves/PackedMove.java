@@ -0,0 +1,170 @@
+package com.example.chessengine.Board.Moves;
+
+import com.example.chessengine.Board.Board;
+import com.example.chessengine.Board.Cell;
+import com.example.chessengine.Board.Pieces.*;
+
+/**
+ * The PackedMove class encodes a move into a single int, so the engine can generate and search moves without creating objects.
+ * Bits 0-5 are the square moved from, bits 6-11 are the square moved to, and bits 12-15 are the flag for the type of move.
+ * Squares are numbered row * 8 + col, starting from the bottom left.
+ * It also converts between the packed moves and the Move objects used by the GUI and the openings book.
+ */
+public final class PackedMove {
+    /**
+     * Private constructor. Instantiation isn't needed.
+     */
+    private PackedMove() {}
+
+    /**
+     * The value used for no move, as a move from a square to itself can never be generated.
+     */
+    public static final int NONE = 0;
+
+    /**
+     * The move flags.
+     * Captures have bit 2 set, and promotions have bit 3 set, where the bottom 2 bits are the promotion piece (knight, bishop, rook, queen).
+     */
+    public static final int QUIET = 0, DOUBLE_PAWN_PUSH = 1, KING_CASTLE = 2, QUEEN_CASTLE = 3, CAPTURE = 4, EN_PASSANT = 5,
+            PROMOTION = 8, PROMOTION_CAPTURE = 12;
+
+    /**
+     * The piece classes for each promotion piece number (1 knight, 2 bishop, 3 rook, 4 queen).
+     */
+    private static final Class<?>[] promotionClasses = {null, Knight.class, Bishop.class, Rook.class, Queen.class};
+
+    /**
+     * @param from The square the piece is moving from (0 to 63 inclusive).
+     * @param to The square the piece is moving to (0 to 63 inclusive).
+     * @param flag The type of move.
+     * @return The packed move.
+     */
+    public static int encode(int from, int to, int flag) {
+        return from | (to << 6) | (flag << 12);
+    }
+
+    /**
+     * @param move The packed move.
+     * @return The square the piece is moving from.
+     */
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    /**
+     * @param move The packed move.
+     * @return The square the piece is moving to.
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @param move The packed move.
+     * @return The flag for the type of move.
+     */
+    public static int flag(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    /**
+     * @param move The packed move.
+     * @return If the move captures a piece, including en passant.
+     */
+    public static boolean isCapture(int move) {
+        return (move & (CAPTURE << 12)) != 0;
+    }
+
+    /**
+     * @param move The packed move.
+     * @return If the move promotes a pawn.
+     */
+    public static boolean isPromotion(int move) {
+        return (move & (PROMOTION << 12)) != 0;
+    }
+
+    /**
+     * @param move The packed move.
+     * @return If the move is a castling move.
+     */
+    public static boolean isCastling(int move) {
+        int flag = flag(move);
+        return flag == KING_CASTLE || flag == QUEEN_CASTLE;
+    }
+
+    /**
+     * @param move The packed move, which must be a promotion.
+     * @return The piece number of the promotion piece (1 knight, 2 bishop, 3 rook, 4 queen).
+     */
+    public static int promotionPiece(int move) {
+        return ((move >>> 12) & 3) + 1;
+    }
+
+    /**
+     * Converts a packed move into the equivalent Move object on the board.
+     * It must be called before the move is made on the board.
+     * @param move The packed move.
+     * @param board The board the move is being made on.
+     * @return The Move object for the packed move, or null if the move is NONE.
+     */
+    public static Move toMove(int move, Board board) {
+        if (move == NONE) return null;
+        int from = from(move);
+        int to = to(move);
+        Piece p = board.getCell(from >>> 3, from & 7).getPiece();
+        Cell cell = board.getCell(to >>> 3, to & 7);
+        int flag = flag(move);
+        if (flag == KING_CASTLE) return new CastlingMove((King) p, (Rook) board.getCell(from >>> 3, 7).getPiece());
+        if (flag == QUEEN_CASTLE) return new CastlingMove((King) p, (Rook) board.getCell(from >>> 3, 0).getPiece());
+        if (flag == EN_PASSANT) return new EnPassantMove((Pawn) p, cell);
+        if (isPromotion(move)) return new PromotionMove((Pawn) p, cell, promotionClasses[promotionPiece(move)]);
+        return new Move(p, cell);
+    }
+
+    /**
+     * Converts a Move object into a packed move.
+     * It must be called before the move is made on the board, so it can see if the move is a capture.
+     * @param move The Move object.
+     * @return The packed move.
+     * @throws IllegalArgumentException error if the promotion class isn't a piece a pawn can promote to.
+     */
+    public static int fromMove(Move move) {
+        Piece p = move.p();
+        Cell cell = move.cell();
+        int from = p.getRow() * 8 + p.getCol();
+        int to = cell.getRow() * 8 + cell.getCol();
+        int flag;
+        if (move instanceof CastlingMove) {
+            flag = cell.getCol() == 6 ? KING_CASTLE : QUEEN_CASTLE;
+        } else if (move instanceof EnPassantMove) {
+            flag = EN_PASSANT;
+        } else if (move instanceof PromotionMove promotionMove) {
+            int promotionPiece = -1;
+            for (int i = 1; i < promotionClasses.length; i++) {
+                if (promotionClasses[i] == promotionMove.promotionClass) promotionPiece = i;
+            }
+            if (promotionPiece == -1) throw new IllegalArgumentException("Invalid class: " + promotionMove.promotionClass);
+            flag = (cell.isHasPiece() ? PROMOTION_CAPTURE : PROMOTION) | (promotionPiece - 1);
+        } else if (cell.isHasPiece()) {
+            flag = CAPTURE;
+        } else if (p.pieceNum == 0 && Math.abs(cell.getRow() - p.getRow()) == 2) {
+            flag = DOUBLE_PAWN_PUSH;
+        } else {
+            flag = QUIET;
+        }
+        return encode(from, to, flag);
+    }
+
+    /**
+     * @param move The packed move.
+     * @return The move in uci notation, such as e2e4 or e7e8q.
+     */
+    public static String toUci(int move) {
+        if (move == NONE) return "0000";
+        StringBuilder sb = new StringBuilder();
+        sb.append(Board.getFileNumberToLetter((from(move) & 7) + 1)).append((from(move) >>> 3) + 1);
+        sb.append(Board.getFileNumberToLetter((to(move) & 7) + 1)).append((to(move) >>> 3) + 1);
+        if (isPromotion(move)) sb.append("pnbrqk".charAt(promotionPiece(move)));
+        return sb.toString();
+    }
+}
@@ -37,6 +37,19 @@ public class PromotionMove extends Move {
         throw new IllegalArgumentException("Invalid class: " + promotionClass);
     }
 
+    /**
+     * Gets the piece number of the promotion piece, without creating a new piece.
+     * Throws an error if the class isn't a piece class
+     * @return The piece number of the promotion piece (1 knight, 2 bishop, 3 rook, 4 queen)
+     */
+    public int getPromotionPieceNum(){
+        if (promotionClass == Rook.class) return 3;
+        if (promotionClass == Queen.class) return 4;
+        if (promotionClass == Bishop.class) return 2;
+        if (promotionClass == Knight.class) return 1;
+        throw new IllegalArgumentException("Invalid class: " + promotionClass);
+    }
+
     /**
      * @return the string representation of the promotion move, with the pawn, target square and promotion piece class
      */
@@ -0,0 +1,140 @@
+package com.example.chessengine.Board;
+
+import com.example.chessengine.Board.Pieces.Piece;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The PieceList class holds all the pieces on a board, indexed by colour and piece type.
+ * Each piece stores its index in the list for its colour and type, so adding, removing and checking if a piece is on the board are all O(1).
+ * Removing a piece moves the last piece of the same colour and type into its place, so the order of the pieces isn't kept.
+ */
+public class PieceList implements Iterable<Piece> {
+    /**
+     * The maximum number of pieces of one colour and type, which is 10 for 2 knights, bishops or rooks and 8 promoted pawns.
+     */
+    private static final int MAX_PIECES_OF_TYPE = 10;
+
+    /**
+     * The pieces of each colour and type, indexed by colour * 6 + pieceNum (0 white, 1 black).
+     */
+    private final Piece[][] pieces = new Piece[12][MAX_PIECES_OF_TYPE];
+
+    /**
+     * The number of pieces of each colour and type.
+     */
+    private final int[] counts = new int[12];
+
+    /**
+     * The total number of pieces in the list.
+     */
+    private int size = 0;
+
+    /**
+     * @param colour The colour of the pieces.
+     * @param pieceNum The number for the piece type.
+     * @return The index of the list for the colour and piece type.
+     */
+    private static int listIndex(Colour colour, int pieceNum) {
+        return (colour == Colour.WHITE ? 0 : 6) + pieceNum;
+    }
+
+    /**
+     * Adds the piece to the end of the list for its colour and type, if it isn't already in it.
+     * @param p The piece being added.
+     */
+    public void add(Piece p) {
+        if (contains(p)) return;
+        int list = listIndex(p.getColour(), p.pieceNum);
+        p.setPieceListIndex(counts[list]);
+        pieces[list][counts[list]++] = p;
+        size++;
+    }
+
+    /**
+     * Removes the piece, by moving the last piece of the same colour and type into its place.
+     * @param p The piece being removed.
+     */
+    public void remove(Piece p) {
+        if (!contains(p)) return;
+        int list = listIndex(p.getColour(), p.pieceNum);
+        int index = p.getPieceListIndex();
+        Piece last = pieces[list][--counts[list]];
+        pieces[list][index] = last;
+        last.setPieceListIndex(index);
+        pieces[list][counts[list]] = null;
+        p.setPieceListIndex(-1);
+        size--;
+    }
+
+    /**
+     * @param p The piece being checked.
+     * @return If the piece is in the list.
+     */
+    public boolean contains(Piece p) {
+        int index = p.getPieceListIndex();
+        int list = listIndex(p.getColour(), p.pieceNum);
+        return index >= 0 && index < counts[list] && pieces[list][index] == p;
+    }
+
+    /**
+     * @param colour The colour of the pieces.
+     * @param pieceNum The number for the piece type.
+     * @return The number of pieces of the colour and type.
+     */
+    public int count(Colour colour, int pieceNum) {
+        return counts[listIndex(colour, pieceNum)];
+    }
+
+    /**
+     * @param colour The colour of the piece.
+     * @param pieceNum The number for the piece type.
+     * @param index The index of the piece in the list for the colour and type (0 to count - 1 inclusive).
+     * @return The piece at that index.
+     */
+    public Piece get(Colour colour, int pieceNum, int index) {
+        return pieces[listIndex(colour, pieceNum)][index];
+    }
+
+    /**
+     * @param colour The colour of the king.
+     * @return The king of that colour, or null if there isn't one on the board.
+     */
+    public Piece getKing(Colour colour) {
+        return pieces[listIndex(colour, 5)][0];
+    }
+
+    /**
+     * @return The total number of pieces in the list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return An iterator over every piece, going through white and then black, each in piece type order.
+     */
+    @Override
+    public Iterator<Piece> iterator() {
+        return new Iterator<>() {
+            private int list = 0;
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (list < 12 && index >= counts[list]) {
+                    list++;
+                    index = 0;
+                }
+                return list < 12;
+            }
+
+            @Override
+            public Piece next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return pieces[list][index++];
+            }
+        };
+    }
+}
@@ -11,6 +11,11 @@ import java.util.List;
  * The class for the bishop chess piece
  */
 public class Bishop extends SlidingPiece {
+    /**
+     * The row and column offsets the bishop can slide in
+     */
+    private static final int[][] directions = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
     /**
      * The list of all pseudolegal moves the bishop can do based on the current position on the board diagonally up and left of itself
      */
@@ -42,33 +47,12 @@ public class Bishop extends SlidingPiece {
     }
 
     /**
-     * Calculates all the squares the bishop could move to if the board was empty
-     * @return A list of all the cells on the board that the bishop could reach if the board was empty
+     * Gets the squares the bishop could reach if the board was empty, from the shared precomputed table
+     * @return The squares (row * 8 + col) on the board that the bishop could reach if the board was empty
      */
     @Override
-    protected List<Cell> TheoreticalReachableCells() {
-        List<Cell> cells = new ArrayList<>();
-        WalkDiagonal(1,1, cells);
-        WalkDiagonal(-1,1, cells);
-        WalkDiagonal(1,-1, cells);
-        WalkDiagonal(-1,-1, cells);
-        return cells;
-    }
-
-    /**
-     * Walks from the current square to the edge of the board, adding all the cells into a list
-     * @param rowD +1 or -1, the row offset
-     * @param colD +1 or -1, the column offset
-     * @param cells The list, the cells walked ar being added to
-     */
-    protected void WalkDiagonal(int rowD, int colD, List<Cell> cells) {
-        int row = getRow() + rowD;
-        int col = getCol() + colD;
-        while (row <= 7 && col <= 7 && row >= 0 && col >= 0) {
-            cells.add(getBoard().getCell(row, col));
-            row += rowD;
-            col += colD;
-        }
+    protected int[] TheoreticalReachableSquares() {
+        return ReachTables.bishopSquares[getRow() * 8 + getCol()];
     }
 
     /**
@@ -151,4 +135,13 @@ public class Bishop extends SlidingPiece {
 //        movesList.addAll(downLeftMovesList);
 //        movesList.addAll(downRightMovesList);
     }
+
+    /**
+     * Calculates the squares the bishop attacks along the diagonals
+     * @return The bitboard of the squares the bishop attacks
+     */
+    @Override
+    protected long CalculateAttacks() {
+        return slidingAttacks(directions);
+    }
 }
@@ -1,12 +1,10 @@
 package com.example.chessengine.Board.Pieces;
 
+import com.example.chessengine.Board.Attacks;
 import com.example.chessengine.Board.Board;
 import com.example.chessengine.Board.Cell;
 import com.example.chessengine.Board.Colour;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The class for the king chess piece
  */
@@ -31,25 +29,12 @@ public class King extends Piece {
     }
 
     /**
-     * Calculates all the squares the king can move to apart from for castling as that is done by the board
-     * @return A list of all the cells on the board that the king could reach if the board was empty
+     * Gets the squares the king could reach if the board was empty, apart from castling as that is done by the board, from the shared precomputed table
+     * @return The squares (row * 8 + col) on the board that the king could reach if the board was empty
      */
     @Override
-    protected List<Cell> TheoreticalReachableCells() {
-        List<Cell> cells = new ArrayList<Cell>();
-        if (getRow() > 0) {
-            cells.add(getBoard().getCell(getRow() - 1, getCol()));
-            if (getCol() > 0) cells.add(getBoard().getCell(getRow() - 1, getCol() - 1));
-            if (getCol() < 7) cells.add(getBoard().getCell(getRow() - 1, getCol() + 1));
-        }
-        if (getRow() < 7) {
-            cells.add(getBoard().getCell(getRow() + 1, getCol()));
-            if (getCol() > 0) cells.add(getBoard().getCell(getRow() + 1, getCol() - 1));
-            if (getCol() < 7) cells.add(getBoard().getCell(getRow() + 1, getCol() + 1));
-        }
-        if (getCol() > 0) cells.add(getBoard().getCell(getRow(), getCol() - 1));
-        if (getCol() < 7) cells.add(getBoard().getCell(getRow(), getCol() + 1));
-        return cells;
+    protected int[] TheoreticalReachableSquares() {
+        return ReachTables.kingSquares[getRow() * 8 + getCol()];
     }
 
     /**
@@ -74,6 +59,15 @@ public class King extends Piece {
         }
     }
 
+    /**
+     * Gets the squares the king attacks from the precomputed attack table
+     * @return The bitboard of the squares the king attacks
+     */
+    @Override
+    protected long CalculateAttacks() {
+        return Attacks.kingAttacks[getRow() * 8 + getCol()];
+    }
+
     /**
      * moves the king by recalculating all the theoretically reachable squares and then calculating all the valid moves from the new position.
      * prevents any castling after the move
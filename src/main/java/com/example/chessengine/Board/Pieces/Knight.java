@@ -1,12 +1,10 @@
 package com.example.chessengine.Board.Pieces;
 
+import com.example.chessengine.Board.Attacks;
 import com.example.chessengine.Board.Board;
 import com.example.chessengine.Board.Cell;
 import com.example.chessengine.Board.Colour;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The class of the knight chess piece
  */
@@ -25,29 +23,12 @@ public class Knight extends Piece {
     }
 
     /**
-     * Calculates all the squares the knight can move to
-     * @return A list of all the cells on the board that the knight could reach if the board was empty
+     * Gets the squares the knight could reach if the board was empty, from the shared precomputed table
+     * @return The squares (row * 8 + col) on the board that the knight could reach if the board was empty
      */
     @Override
-    protected List<Cell> TheoreticalReachableCells() {
-        List<Cell> cells = new ArrayList<>();
-        if (getCol() + 1 <= 7) {
-            if (getRow() + 2 <= 7) cells.add(getBoard().getCell(getRow() + 2, getCol() + 1));
-            if (getRow() - 2 >= 0) cells.add(getBoard().getCell(getRow() - 2, getCol() + 1));
-            if (getCol() + 2 <= 7) {
-                if (getRow() + 1 <= 7) cells.add(getBoard().getCell(getRow() + 1, getCol() + 2));
-                if (getRow() - 1 >= 0) cells.add(getBoard().getCell(getRow() - 1, getCol() + 2));
-            }
-        }
-        if (getCol() - 1 >= 0) {
-            if (getRow() + 2 <= 7) cells.add(getBoard().getCell(getRow() + 2, getCol() - 1));
-            if (getRow() - 2 >= 0) cells.add(getBoard().getCell(getRow() - 2, getCol() - 1));
-            if (getCol() - 2 >= 0) {
-                if (getRow() + 1 <= 7) cells.add(getBoard().getCell(getRow() + 1, getCol() - 2));
-                if (getRow() - 1 >= 0) cells.add(getBoard().getCell(getRow() - 1, getCol() - 2));
-            }
-        }
-        return cells;
+    protected int[] TheoreticalReachableSquares() {
+        return ReachTables.knightSquares[getRow() * 8 + getCol()];
     }
 
     /**
@@ -72,4 +53,13 @@ public class Knight extends Piece {
             movesList.add(cell);
         }
     }
+
+    /**
+     * Gets the squares the knight attacks from the precomputed attack table
+     * @return The bitboard of the squares the knight attacks
+     */
+    @Override
+    protected long CalculateAttacks() {
+        return Attacks.knightAttacks[getRow() * 8 + getCol()];
+    }
 }
@@ -1,12 +1,10 @@
 package com.example.chessengine.Board.Pieces;
 
+import com.example.chessengine.Board.Attacks;
 import com.example.chessengine.Board.Board;
 import com.example.chessengine.Board.Cell;
 import com.example.chessengine.Board.Colour;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The class for the pawn chess piece
  */
@@ -30,25 +28,12 @@ public class Pawn extends Piece {
     }
 
     /**
-     * Calculates all the squares the pawn can move to apart from en passant as that is done by the board
-     * @return A list of all the cells on the board that the pawn could reach if the board was empty
+     * Gets the squares the pawn could reach if the board was empty, apart from en passant as that is done by the board, from the shared precomputed table
+     * @return The squares (row * 8 + col) on the board that the pawn could reach if the board was empty
      */
     @Override
-    protected List<Cell> TheoreticalReachableCells() {
-        List<Cell> cells = new ArrayList<Cell>();
-        if (getColour() == Colour.WHITE) {
-            cells.add(getBoard().getCell(getRow() + 1, getCol()));
-            if (firstRank) {cells.add(getBoard().getCell(3, getCol()));}
-            if (getCol() > 0) {cells.add(getBoard().getCell(getRow() + 1, getCol() - 1));}
-            if (getCol() < 7) {cells.add(getBoard().getCell(getRow() + 1, getCol() + 1));}
-        }
-        else if (getColour() == Colour.BLACK) {
-            cells.add(getBoard().getCell(getRow() - 1, getCol()));
-            if (firstRank) {cells.add(getBoard().getCell(4, getCol()));}
-            if (getCol() > 0) {cells.add(getBoard().getCell(getRow() - 1, getCol() - 1));}
-            if (getCol() < 7) {cells.add(getBoard().getCell(getRow() - 1, getCol() + 1));}
-        }
-        return cells;
+    protected int[] TheoreticalReachableSquares() {
+        return ReachTables.pawnSquares[getColour() == Colour.WHITE ? 0 : 1][getRow() * 8 + getCol()];
     }
 
     /**
@@ -123,6 +108,15 @@ public class Pawn extends Piece {
         }
     }
 
+    /**
+     * Gets the squares the pawn attacks diagonally from the precomputed attack table, as moving forward doesn't attack anything
+     * @return The bitboard of the squares the pawn attacks
+     */
+    @Override
+    protected long CalculateAttacks() {
+        return Attacks.pawnAttacks[getColour() == Colour.WHITE ? 0 : 1][getRow() * 8 + getCol()];
+    }
+
     /**
      * updates whether the pawn is on the first rank, while the row is updated
      * @param row The new row of the moved piece (0 to 7 inclusive)
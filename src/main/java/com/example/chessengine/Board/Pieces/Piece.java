@@ -26,7 +26,12 @@ public abstract class Piece implements CellListener {
      */
     protected final List<Cell> cellsList =  new ArrayList<>();
 
+    /**
+     * Gets the pseudolegal moves of the piece, first recalculating them if a cell it listens to has changed since they were last calculated.
+     * @return The list of all pseudolegal moves the piece can do based on the current position on the board
+     */
     public List<Cell> getMovesList() {
+        if (movesDirty) refreshMoves();
         return movesList;
     }
 
@@ -51,6 +56,23 @@ public abstract class Piece implements CellListener {
 
     private boolean beingMoved = false;
 
+    /**
+     * If the moves lists are out of date, as a cell the piece listens to has changed while the board is using lazy move lists.
+     * The moves are only recalculated when they are next read.
+     */
+    private boolean movesDirty = false;
+
+    /**
+     * The bitboard of the squares (row * 8 + col) the piece attacks, including squares holding pieces of its own colour.
+     * The board's attack counts are updated whenever this changes.
+     */
+    private long attacks = 0;
+
+    /**
+     * The index of the piece in the board's piece list for its colour and type, or -1 if it isn't in the list
+     */
+    private int pieceListIndex = -1;
+
     /**
      * The constructor for a new piece being added to a chessboard
      * @param board The board the piece is being added to
@@ -68,12 +90,10 @@ public abstract class Piece implements CellListener {
     }
 
     protected void init(){
-        for(Cell c : TheoreticalReachableCells()){
-            c.addListener(this);
-            cellsList.add(c);
-        }
+        listenToReachableCells();
 
-        CalculateValidMoves();
+        calculateMoves();
+        updateAttacks();
     }
 
     /**
@@ -85,20 +105,27 @@ public abstract class Piece implements CellListener {
         setRow(newRow);
         setCol(newCol);
 
-        if (!board.pieces.contains(this)) { // TODO: needs to be quicker, maybe a flag can be used instead
-            board.pieces.add(this);
-        }
+        board.pieces.add(this);
 
-        for(Cell c : TheoreticalReachableCells()){
-            c.addListener(this);
-            cellsList.add(c);
-        }
+        listenToReachableCells();
 
-        CalculateValidMoves();
+        calculateMoves();
+        updateAttacks();
 
         beingMoved = false;
     }
 
+    /**
+     * Subscribes the piece as a listener to every cell it could reach from its current square, using the shared reach tables.
+     */
+    private void listenToReachableCells(){
+        for (int square : TheoreticalReachableSquares()){
+            Cell c = board.getCell(square >>> 3, square & 7);
+            c.addListener(this);
+            cellsList.add(c);
+        }
+    }
+
     /**
      * When the piece is being removed from the board this is called to remove it as a listener from all the cells it is subscribed to
      */
@@ -108,10 +135,35 @@ public abstract class Piece implements CellListener {
             c.removeListener(this);
         }
         cellsList.clear();
+        setAttacks(0);
+    }
+
+    /**
+     * Recalculates the squares the piece attacks, and updates the board's attack counts if they have changed.
+     */
+    protected void updateAttacks(){
+        setAttacks(CalculateAttacks());
+    }
+
+    /**
+     * Sets the squares the piece attacks, adding and removing the changed squares from the board's attack counts.
+     * @param newAttacks The bitboard of the squares the piece now attacks.
+     */
+    private void setAttacks(long newAttacks){
+        if (newAttacks == attacks) return;
+        board.updateAttackCounts(colour, attacks, newAttacks);
+        attacks = newAttacks;
+    }
+
+    /**
+     * @return The bitboard of the squares (row * 8 + col) the piece attacks, including squares holding pieces of its own colour.
+     */
+    public long getAttacks() {
+        return attacks;
     }
 
     /**
-     * Recalculates the valid moves based on the cell that changed
+     * Recalculates the valid moves based on the cell that changed, or marks them as out of date if the board is using lazy move lists
      * @param row       The row of the changed cell
      * @param col       The column of the changed cell
      * @param oldColour The colour of the piece that used to be in the cell
@@ -119,14 +171,42 @@ public abstract class Piece implements CellListener {
      */
     @Override
     public void CellChanged(int row, int col, Colour oldColour, Colour newColour) {
-        ReCalculateValidMoves(row, col, oldColour, newColour);
+        if (board.isLazyMoveLists() || movesDirty) movesDirty = true;
+        else ReCalculateValidMoves(row, col, oldColour, newColour);
+    }
+
+    /**
+     * Calculates the valid moves from scratch after the piece is placed, or marks them to be calculated when they are next read if the board is using lazy move lists.
+     */
+    private void calculateMoves(){
+        if (board.isLazyMoveLists()) {
+            movesDirty = true;
+        } else {
+            CalculateValidMoves();
+            movesDirty = false;
+        }
+    }
+
+    /**
+     * Recalculates the valid moves from scratch, as they are out of date.
+     */
+    protected void refreshMoves(){
+        CalculateValidMoves();
+        movesDirty = false;
+    }
+
+    /**
+     * @return If the moves lists are out of date and will be recalculated when they are next read.
+     */
+    protected boolean isMovesDirty(){
+        return movesDirty;
     }
 
     /**
      * All pieces will override this method as they each have a different movement
-     * @return A list of all the cells on the board that the piece could reach if the board was empty
+     * @return The squares (row * 8 + col) on the board that the piece could reach if the board was empty
      */
-    protected abstract List<Cell> TheoreticalReachableCells();
+    protected abstract int[] TheoreticalReachableSquares();
 
     /**
      * Calculates all the pseudolegal moves in the current position
@@ -134,6 +214,12 @@ public abstract class Piece implements CellListener {
      */
     protected abstract void CalculateValidMoves();
 
+    /**
+     * All pieces will override this method as they each attack differently
+     * @return The bitboard of the squares (row * 8 + col) the piece attacks in the current position
+     */
+    protected abstract long CalculateAttacks();
+
     /**
      * updates the pseudolegal moves based on the change
      * @param row must be between 0 and 7 inclusive
@@ -204,6 +290,20 @@ public abstract class Piece implements CellListener {
         return row == piece.row && col == piece.col && Objects.equals(board, piece.board) && Objects.equals(cellsList, piece.cellsList) && Objects.equals(movesList, piece.movesList) && colour == piece.colour;
     }
 
+    /**
+     * @return The index of the piece in the board's piece list for its colour and type, or -1 if it isn't in the list
+     */
+    public int getPieceListIndex() {
+        return pieceListIndex;
+    }
+
+    /**
+     * @param pieceListIndex The new index of the piece in the board's piece list, set by the piece list as pieces are added and removed
+     */
+    public void setPieceListIndex(int pieceListIndex) {
+        this.pieceListIndex = pieceListIndex;
+    }
+
     public void setBeingMoved(boolean beingMoved) {
         this.beingMoved = beingMoved;
     }
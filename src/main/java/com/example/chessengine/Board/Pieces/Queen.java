@@ -11,6 +11,11 @@ import java.util.List;
  * The class of the queen chess piece
  */
 public class Queen extends SlidingPiece{
+    /**
+     * The row and column offsets the queen can slide in
+     */
+    private static final int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
     /**
      * The list of all pseudolegal moves the queen can do based on the current position on the board above itself
      */
@@ -59,44 +64,12 @@ public class Queen extends SlidingPiece{
     }
 
     /**
-     * Calculates all the squares the queen could move to if the board was empty
-     *
-     * @return A list of all the cells on the board that the queen could reach if the board was empty
+     * Gets the squares the queen could reach if the board was empty, from the shared precomputed table
+     * @return The squares (row * 8 + col) on the board that the queen could reach if the board was empty
      */
     @Override
-    protected List<Cell> TheoreticalReachableCells() {
-        List<Cell> cells = new ArrayList<Cell>();
-        for (int i = 0; i < 8; i++) {
-            if (i != getRow()) {
-                cells.add(getBoard().getCell(i, getCol()));
-            }
-        }
-        for (int i = 0; i < 8; i++) {
-            if (i != getCol()) {
-                cells.add(getBoard().getCell(getRow(), i));
-            }
-        }
-        WalkDiagonal(1,1, cells);
-        WalkDiagonal(-1,1, cells);
-        WalkDiagonal(1,-1, cells);
-        WalkDiagonal(-1,-1, cells);
-        return cells;
-    }
-
-    /**
-     * Walks from the current square to the edge of the board, adding all the cells into a list
-     * @param rowD +1 or -1, the row offset
-     * @param colD +1 or -1, the column offset
-     * @param cells The list, the cells walked ar being added to
-     */
-    protected void WalkDiagonal(int rowD, int colD, List<Cell> cells) {
-        int row = getRow() + rowD;
-        int col = getCol() + colD;
-        while (row <= 7 && col <= 7 && row >= 0 && col >= 0) {
-            cells.add(getBoard().getCell(row, col));
-            row += rowD;
-            col += colD;
-        }
+    protected int[] TheoreticalReachableSquares() {
+        return ReachTables.queenSquares[getRow() * 8 + getCol()];
     }
 
     /**
@@ -211,6 +184,15 @@ public class Queen extends SlidingPiece{
         //UpdateMovesList();
     }
 
+    /**
+     * Calculates the squares the queen attacks along the ranks, files and diagonals
+     * @return The bitboard of the squares the queen attacks
+     */
+    @Override
+    protected long CalculateAttacks() {
+        return slidingAttacks(directions);
+    }
+
     /**
      * Update the movesList, with the changes to one or more of the arrays
      */
@@ -0,0 +1,79 @@
+package com.example.chessengine.Board.Pieces;
+
+import com.example.chessengine.Board.Attacks;
+
+/**
+ * The ReachTables class holds the squares each piece type could reach from each square if the board was empty.
+ * They are worked out once and shared by every piece on every board, so moving a piece doesn't need to create a new list of cells.
+ * Squares are numbered row * 8 + col, starting from the bottom left.
+ */
+final class ReachTables {
+    /**
+     * Private constructor. Instantiation isn't needed.
+     */
+    private ReachTables() {}
+
+    /**
+     * The squares a knight can reach from each square.
+     */
+    static final int[][] knightSquares = new int[64][];
+
+    /**
+     * The squares a king can reach from each square, apart from castling.
+     */
+    static final int[][] kingSquares = new int[64][];
+
+    /**
+     * The squares a rook can reach from each square.
+     */
+    static final int[][] rookSquares = new int[64][];
+
+    /**
+     * The squares a bishop can reach from each square.
+     */
+    static final int[][] bishopSquares = new int[64][];
+
+    /**
+     * The squares a queen can reach from each square.
+     */
+    static final int[][] queenSquares = new int[64][];
+
+    /**
+     * The squares a pawn of each colour (0 white, 1 black) can reach from each square, apart from en passant.
+     * This is the square in front, the square 2 in front if it is on its first rank, and the 2 diagonal squares in front.
+     */
+    static final int[][][] pawnSquares = new int[2][64][];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            knightSquares[square] = toSquares(Attacks.knightAttacks[square]);
+            kingSquares[square] = toSquares(Attacks.kingAttacks[square]);
+            rookSquares[square] = toSquares(Attacks.rookAttacks(square, 0));
+            bishopSquares[square] = toSquares(Attacks.bishopAttacks(square, 0));
+            queenSquares[square] = toSquares(Attacks.queenAttacks(square, 0));
+
+            int row = square >>> 3;
+            long white = Attacks.pawnAttacks[0][square];
+            long black = Attacks.pawnAttacks[1][square];
+            if (row < 7) white |= 1L << (square + 8);
+            if (row == 1) white |= 1L << (square + 16);
+            if (row > 0) black |= 1L << (square - 8);
+            if (row == 6) black |= 1L << (square - 16);
+            pawnSquares[0][square] = toSquares(white);
+            pawnSquares[1][square] = toSquares(black);
+        }
+    }
+
+    /**
+     * @param bitboard The bitboard of the squares.
+     * @return The array of the squares set in the bitboard, in increasing order.
+     */
+    private static int[] toSquares(long bitboard) {
+        int[] squares = new int[Long.bitCount(bitboard)];
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = Long.numberOfTrailingZeros(bitboard);
+            bitboard &= bitboard - 1;
+        }
+        return squares;
+    }
+}
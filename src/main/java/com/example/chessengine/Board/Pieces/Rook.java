@@ -11,6 +11,10 @@ import java.util.List;
  * The class for the rook chess piece
  */
 public class Rook extends SlidingPiece {
+    /**
+     * The row and column offsets the rook can slide in
+     */
+    private static final int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
 
     /**
      * if the rook is able to castle, used by the board to deal with castling
@@ -48,23 +52,12 @@ public class Rook extends SlidingPiece {
     }
 
     /**
-     * Calculates all the squares the rook could move to if the board was empty
-     * @return A list of all the cells on the board that the rook could reach if the board was empty
+     * Gets the squares the rook could reach if the board was empty, from the shared precomputed table
+     * @return The squares (row * 8 + col) on the board that the rook could reach if the board was empty
      */
     @Override
-    protected List<Cell> TheoreticalReachableCells() {
-        List<Cell> cells = new ArrayList<Cell>();
-        for (int i = 0; i < 8; i++) {
-            if (i != getRow()) {
-                cells.add(getBoard().getCell(i, getCol()));
-            }
-        }
-        for (int i = 0; i < 8; i++) {
-            if (i != getCol()) {
-                cells.add(getBoard().getCell(getRow(), i));
-            }
-        }
-        return cells;
+    protected int[] TheoreticalReachableSquares() {
+        return ReachTables.rookSquares[getRow() * 8 + getCol()];
     }
 
     /**
@@ -142,6 +135,15 @@ public class Rook extends SlidingPiece {
 //        movesList.addAll(upMovesList);
     }
 
+    /**
+     * Calculates the squares the rook attacks along the ranks and files
+     * @return The bitboard of the squares the rook attacks
+     */
+    @Override
+    protected long CalculateAttacks() {
+        return slidingAttacks(directions);
+    }
+
     /**
      * moves the rook by recalculating all the theoretically reachable squares and then calculating all the valid moves from the new position.
      * prevents castling with this rook after it moves
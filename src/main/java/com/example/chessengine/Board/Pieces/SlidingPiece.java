@@ -14,7 +14,16 @@ public abstract class SlidingPiece extends Piece {
     /**
      * A list of every moves list for the sliding piece
      */
-    public final List<List<Cell>> movesListsFromDirections = new ArrayList<>();
+    protected final List<List<Cell>> movesListsFromDirections = new ArrayList<>();
+
+    /**
+     * Gets the moves lists for each direction, first recalculating them if a cell the piece listens to has changed since they were last calculated.
+     * @return A list of every moves list for the sliding piece
+     */
+    public List<List<Cell>> getMovesListsFromDirections() {
+        if (isMovesDirty()) refreshMoves();
+        return movesListsFromDirections;
+    }
     /**
      * The constructor for a new sliding piece being added to a chessboard
      *
@@ -28,4 +37,37 @@ public abstract class SlidingPiece extends Piece {
         super(board, row, col, colour, pieceNum);
     }
 
+    /**
+     * Recalculates the valid moves based on the cell that changed, and then the attacked squares,
+     * as a sliding piece's attacks change when a cell along one of its lines is filled or emptied
+     * @param row       The row of the changed cell
+     * @param col       The column of the changed cell
+     * @param oldColour The colour of the piece that used to be in the cell
+     * @param newColour The colour of the new pice in the cell
+     */
+    @Override
+    public void CellChanged(int row, int col, Colour oldColour, Colour newColour) {
+        super.CellChanged(row, col, oldColour, newColour);
+        updateAttacks();
+    }
+
+    /**
+     * Walks from the piece in each direction until a piece or the edge of the board is hit.
+     * @param directions The row and column offsets the piece can slide in
+     * @return The bitboard of the squares attacked, including the first piece hit in each direction
+     */
+    protected long slidingAttacks(int[][] directions) {
+        long attacks = 0;
+        for (int[] direction: directions) {
+            int row = getRow() + direction[0];
+            int col = getCol() + direction[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                attacks |= 1L << (row * 8 + col);
+                if (getBoard().getCell(row, col).isHasPiece()) break;
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
 }
@@ -32,11 +32,24 @@ public class Zobrist {
     public final long blackToMove;
 
 
+    /**
+     * The shared Zobrist object, so the pseudorandom numbers are only generated once for every board.
+     */
+    private static final Zobrist instance = new Zobrist();
+
+    /**
+     * @return The shared Zobrist object used by every board.
+     */
+    public static Zobrist getInstance(){
+        return instance;
+    }
+
     /**
      * The constructor for a new Zobrist object.
      * It initialises all the pseudorandom numbers using the same seed each time, for consistency.
+     * Private as the numbers are the same every time, so the shared instance is used instead.
      */
-    public Zobrist(){
+    private Zobrist(){
         Random random = new Random(43587692);
         for (int i = 0; i < 6; i++) {
             for (int j = 0; j < 2; j++) {
@@ -62,8 +62,7 @@ public class Book {
         BookMove[] bookMoveArray = bookPositions.get(board.getZobristKey()).MovesWithNumPlayed.keySet().toArray(new BookMove[0]);
         Random random = new Random();
         BookMove bookMove = bookMoveArray[random.nextInt(bookMoveArray.length)];
-        for (Move move: board.getPseudolegalMoves()){
-            if (!board.checkLegalMoves(move, true)) continue;
+        for (Move move: board.getLegalMoves()){
             if (move.p().getRow() == bookMove.pieceRow() &&
                     move.p().getCol() == bookMove.pieceCol() &&
                     move.cell().getRow() == bookMove.cellRow() &&
@@ -110,8 +109,7 @@ public class Book {
         }
         assert bookMove != null;
 
-        for (Move move: board.getPseudolegalMoves()){
-            if (!board.checkLegalMoves(move, true)) continue;
+        for (Move move: board.getLegalMoves()){
             if (move.p().getRow() == bookMove.pieceRow() &&
                     move.p().getCol() == bookMove.pieceCol() &&
                     move.cell().getRow() == bookMove.cellRow() &&
@@ -137,8 +137,7 @@ public class BookCreator {
      * @throws RuntimeException error if the san move doesn't correspond to a legal move in the current position.
      */
     private Move getMove(Board board, String algebraicMove){
-        for (Move testMove: board.getPseudolegalMoves()){
-            if (!board.checkLegalMoves(testMove, true)) continue;
+        for (Move testMove: board.getLegalMoves()){
             if (algebraicMove.equals("OO") && testMove.getClass() == CastlingMove.class){
                 if (testMove.cell().getCol() == 6) return testMove;
             }else if (algebraicMove.equals("OOO") && testMove.getClass() == CastlingMove.class){
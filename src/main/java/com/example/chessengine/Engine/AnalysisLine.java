@@ -0,0 +1,21 @@
+package com.example.chessengine.Engine;
+
+import java.util.List;
+
+/**
+ * The AnalysisLine record holds one of the best lines found by an iteration of the search, for multi-PV analysis.
+ * @param rank The rank of the line, where 1 is the best line.
+ * @param depth The depth of the iteration.
+ * @param score The score of the line for the colour to move.
+ * @param nodes The number of positions the main search worker had searched when the iteration finished.
+ * @param time The time in milliseconds since the search started.
+ * @param pv The moves of the line in UCI notation, starting with the root move.
+ */
+public record AnalysisLine(int rank, int depth, int score, long nodes, long time, List<String> pv) {
+    /**
+     * @return The root move of the line in UCI notation.
+     */
+    public String move() {
+        return pv.getFirst();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.chessengine.Engine;
+
+import java.util.List;
+
+/**
+ * Interface to define the method called with the lines found by each finished iteration of the search.
+ */
+@FunctionalInterface
+public interface AnalysisListener {
+    /**
+     * Method called by the main search worker's thread when an iteration has searched every line.
+     * @param lines The best lines found, best first, with as many lines as the multi-PV count, or fewer if there aren't enough legal moves.
+     */
+    void iterationFinished(List<AnalysisLine> lines);
+}
@@ -2,42 +2,71 @@ package com.example.chessengine.Engine;
 
 import com.example.chessengine.Board.*;
 import com.example.chessengine.Board.Moves.Move;
-import com.example.chessengine.Board.Moves.PromotionMove;
-import com.example.chessengine.Board.Pieces.*;
+import com.example.chessengine.Board.Moves.PackedMove;
 import com.example.chessengine.Book.Book;
 import com.example.chessengine.Book.BookCreator;
 import com.example.chessengine.Tablebase.LichessAPI;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The Engine class can find the next move to do, or count the number of positions after a given depth.
  */
-public class Engine{
+public final class Engine{
     /**
      * The Board object, the game is happening on
      */
     private final Board board;
 
+    /**
+     * The table of searched positions, kept between searches so results from the last move can be reused.
+     * It is shared by every search worker.
+     */
+    private TranspositionTable transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB);
+
+    /**
+     * The worker that searches on the thread calling getNextMove, whose result is the move played.
+     */
+    private final SearchWorker mainWorker;
+
+    /**
+     * The workers searching on helper threads at the same time as the main worker, sharing the transposition table.
+     */
+    private SearchWorker[] helperWorkers = new SearchWorker[0];
+
+    /**
+     * The threads the helper workers run on, or null if there are no helpers.
+     */
+    private ExecutorService helperThreads;
+
     /**
      * The colour the engine playing is
      */
     private final Colour engineColour;
 
+    /**
+     * The colour the engine is playing as, as a bitboard colour index (0 white, 1 black).
+     */
+    private final int engineSide;
+
     /**
      * The best move in the current position, overwritten if a new best move is found.
      */
-    private Move bestMove;
+    private int bestMove;
 
     /**
-     * used for debug to see the number of positions looked at.
+     * The principal variation of the last search, the line of best moves expected for both sides, starting with bestMove.
      */
-    private int count = 0;
+    private int[] principalVariation = new int[0];
 
     /**
      * the score associated with a king being mated, being sufficiently higher than a position score ever could
      */
-    private final int mateScore = 100_000;
+    static final int mateScore = 100_000;
 
     /**
      * If the engine is still trying to use the openings book to get moves.
@@ -49,13 +78,38 @@ public class Engine{
      */
     private final Book book;
 
-    private boolean stopSearch = false;
+    /**
+     * If the current search should stop, checked by every search worker at every node.
+     */
+    volatile boolean stopSearch = false;
+
+    /**
+     * The time manager deciding when the current search stops.
+     */
+    private final TimeManager timeManager = new TimeManager();
+
+    /**
+     * The number of best root moves the search finds lines for, which is 1 unless the engine is used for analysis.
+     */
+    private int multiPv = 1;
 
-    private Move bestMoveInCurrentSearch;
+    /**
+     * The UCI moves the root of the search is limited to, or an empty list for every legal move.
+     */
+    private volatile List<String> searchMoves = List.of();
+
+    /**
+     * The listener called with the lines of each finished iteration, or null if there isn't one.
+     */
+    private volatile AnalysisListener analysisListener;
+
+    /**
+     * The lines of the last finished iteration of the last search.
+     */
+    private volatile List<AnalysisLine> analysis = List.of();
 
     private int bestEval;
-    private int bestEvalThisSearch;
-    private int fullCount = 0;
+    private long fullCount = 0;
     private int latestFinishedDepth;
 
     /**
@@ -66,14 +120,49 @@ public class Engine{
     public Engine(Board board, Colour engineColour) {
         this.board = board;
         this.engineColour = engineColour;
+        engineSide = engineColour == Colour.WHITE ? BitBoard.WHITE : BitBoard.BLACK;
         book = BookCreator.LoadBook();
+        mainWorker = new SearchWorker(this, 0);
     }
 
     /**
-     * Finds the next move to play, using either the openings book, a tablebase or searching through position evaluations.
+     * Finds the next move to play, searching until stopCurrentSearch is called or a mate is found.
      * @return The next move the engine is playing
      */
     public Move getNextMove(){
+        timeManager.startInfinite();
+        return nextMove();
+    }
+
+    /**
+     * Finds the next move to play, searching for a fixed amount of time.
+     * @param moveTime The time in milliseconds to search for.
+     * @return The next move the engine is playing
+     */
+    public Move getNextMove(long moveTime){
+        timeManager.startMoveTime(moveTime);
+        return nextMove();
+    }
+
+    /**
+     * Finds the next move to play, with the search time worked out from the engine's clock.
+     * @param remaining The time left on the engine's clock in milliseconds.
+     * @param increment The time added to the clock after each move in milliseconds.
+     * @param movesToGo The number of moves until more time is added, or 0 if the time left is for the rest of the game.
+     * @return The next move the engine is playing
+     */
+    public Move getNextMove(long remaining, long increment, int movesToGo){
+        timeManager.start(remaining, increment, movesToGo);
+        return nextMove();
+    }
+
+    /**
+     * Finds the next move to play, using either the openings book, a tablebase or searching through position evaluations,
+     * with the time manager already started.
+     * @return The next move the engine is playing
+     */
+    private Move nextMove(){
+        principalVariation = new int[0];
         if (usingBook){
             if (!book.positionInBook(board.getZobristKey())) usingBook = false;
             else {
@@ -89,226 +178,275 @@ public class Engine{
             }
         }
 
-        iterativeDeepening();
+        stopSearch = false;
+        iterativeDeepening(new BitBoard(board));
         if ("true".equals(System.getenv("LOGS"))){
             System.out.println("-----normal move-----");
             System.out.println(bestEval);
             System.out.println(fullCount);
             System.out.println(latestFinishedDepth);
+            System.out.println(getPrincipalVariation());
         }
-        return bestMove;
+        return PackedMove.toMove(bestMove, board);
     }
 
-    private void iterativeDeepening(){
+    /**
+     * Analyses the current position for a fixed amount of time, without using the openings book or a tablebase.
+     * @param moveTime The time in milliseconds to search for.
+     * @return The best lines found by the last finished iteration, best first, with up to the multi-PV count of lines.
+     */
+    public List<AnalysisLine> analyse(long moveTime){
+        timeManager.startMoveTime(moveTime);
+        analysis = List.of();
         stopSearch = false;
-        bestMove = null;
-        bestEval = 0;
-        fullCount = 0;
-
-        int depth = 1;
-        while (!stopSearch){
-            count = 0;
-            bestMoveInCurrentSearch = null;
-            bestEvalThisSearch = search(depth, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, true);
-
-            if (!stopSearch) {
-                bestMove = bestMoveInCurrentSearch;
-                bestEval = bestEvalThisSearch;
-                System.out.println(depth + ": " + bestEval + ", " + bestMove + ", " + count);
-                fullCount = count;
-                latestFinishedDepth = depth;
-            }
-
-            if (Math.abs(bestEval) + depth >= mateScore) return;
+        iterativeDeepening(new BitBoard(board));
+        return analysis;
+    }
 
-            depth++;
+    /**
+     * Searches the position the opponent is expected to reach while they are thinking, filling the transposition table for the real search.
+     * The search runs until the stop flag is set or the time manager's limits pass, so the time manager must be started first.
+     * The stop flag isn't cleared, so a stop before the search starts isn't lost, and it must be cleared by the caller.
+     * @param position The bitboard of the expected position, which isn't changed.
+     */
+    void ponder(BitBoard position){
+        iterativeDeepening(position);
+        if ("true".equals(System.getenv("LOGS"))){
+            System.out.println("-----ponder search-----");
+            System.out.println(latestFinishedDepth);
+            System.out.println(getPrincipalVariation());
         }
     }
 
-    public void stopCurrentSearch(){
-        stopSearch = true;
+    /**
+     * Finds the position to ponder on, which is the current position after the reply expected in the principal variation of the last search.
+     * This should be called after the engine's move has been made on the board.
+     * @return A new bitboard of the position, or null if the last search didn't give a reply.
+     */
+    public BitBoard getPonderPosition(){
+        if (principalVariation.length < 2) return null;
+        BitBoard position = new BitBoard(board);
+        int reply = principalVariation[1];
+        if (!position.isLegal(reply)) return null;
+        position.makeMove(reply);
+        return position;
     }
 
     /**
-     * Performs an alpha-beta pruning algorithm to find the best move by searching upto the maxDepth.
-     * It creates the search tree as it searches it, to prevent wasted calculations.
-     * It updates bestMove when a new best move at a depth of 0 is found.
-     * @param maxDepth The max ply the search is going to.
-     * @param currentDepth The current ply the search is at.
-     * @param alpha The highest number the maximising player can guaranty.
-     * @param beta The lowest number the minimising player can guaranty.
-     * @param maximising If at the current depth the search should be maximising or minimising the score.
-     * @return The score of the position the search is currently evaluating.
+     * @return The zobrist key of the current position on the board, calculated in the same way as a bitboard's.
      */
-    private int search(int maxDepth, int currentDepth, int alpha, int beta, boolean maximising){
-        if (stopSearch){
-            return 0;
-        }
+    long getPositionKey(){
+        return new BitBoard(board).getZobristKey();
+    }
+
+    /**
+     * @return The best move found by the last search, which must have been of the current position on the board.
+     */
+    Move getSearchedMove(){
+        return PackedMove.toMove(bestMove, board);
+    }
 
-        if (maxDepth == 0) {
-            return quiescenceSearch(alpha, beta, maximising);
+    /**
+     * Runs the iterative deepening search on the main worker, and on every helper worker on their own threads,
+     * each with its own copy of the position.
+     * When the main worker finishes, the helpers are stopped and the main worker's result is used,
+     * with the node count being the total of every worker.
+     * @param position The bitboard of the position to search, which isn't changed.
+     */
+    private void iterativeDeepening(BitBoard position){
+        transpositionTable.newSearch();
+
+        Future<?>[] helperResults = new Future<?>[helperWorkers.length];
+        for (int i = 0; i < helperWorkers.length; i++){
+            SearchWorker helper = helperWorkers[i];
+            helper.setBitBoard(new BitBoard(position));
+            helperResults[i] = helperThreads.submit(helper::iterativeDeepening);
         }
+        mainWorker.setBitBoard(new BitBoard(position));
+        mainWorker.iterativeDeepening();
 
-        boolean noMoves = true;
-        List<Move> moveList = board.getPseudolegalMoves();
-        orderMoves(moveList);
-        if (currentDepth == 0){
-            if (moveList.remove(bestMove)){
-                moveList.addFirst(bestMove);
+        stopSearch = true;
+        for (Future<?> helperResult : helperResults){
+            try {
+                helperResult.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
             }
         }
 
-        if (maximising){
-            for (Move move: moveList){
-                if (board.checkLegalMoves(move, false)){
-                    noMoves = false;
-                    count++;
-                    int score = search(maxDepth - 1, currentDepth + 1, alpha, beta, false);
-                    board.undoMove();
-
-                    if (score > alpha){
-                        alpha = score;
-                        if (currentDepth == 0){
-                            bestMoveInCurrentSearch = move;
-                        }
-                    }
-
-                    if (alpha >= beta){
-                        break;
-                    }
-                }
-            }
-            if (noMoves){
-                if (board.isInCheck()) {
-                    return currentDepth-mateScore;
-                } else {
-                    return 0;
-                }
-            }
-            return alpha;
+        // if the main worker didn't finish an iteration, use the deepest helper instead
+        SearchWorker best = mainWorker;
+        fullCount = mainWorker.getNodes();
+        for (SearchWorker helper : helperWorkers){
+            fullCount += helper.getNodes();
+            if (best.getBestMove() == PackedMove.NONE && helper.getCompletedDepth() > best.getCompletedDepth()) best = helper;
         }
-        else {
-            for (Move move: moveList){
-                if (board.checkLegalMoves(move, false)){
-                    noMoves = false;
-                    count++;
-                    int score = search(maxDepth - 1, currentDepth + 1, alpha, beta, true);
-                    board.undoMove();
-
-                    if (score < beta){
-                        beta = score;
-                    }
-
-                    if (alpha >= beta){
-                        break;
-                    }
-                }
-            }
-            if (noMoves){
-                if (board.isInCheck()) return mateScore - currentDepth;
-                else return 0;
-            }
-            return beta;
+        bestMove = best.getBestMove();
+        bestEval = best.getBestEval();
+        latestFinishedDepth = best.getCompletedDepth();
+        principalVariation = best.getPrincipalVariation();
+    }
+
+    /**
+     * Stops the current search on every worker, so getNextMove returns the best move found so far.
+     */
+    public void stopCurrentSearch(){
+        stopSearch = true;
+    }
+
+    /**
+     * Sets the number of helper threads searching alongside the main search, replacing any existing helpers.
+     * This shouldn't be called while a search is running.
+     * @param count The number of helper threads, where 0 only uses the thread calling getNextMove.
+     */
+    public void setHelperThreadCount(int count){
+        if (count < 0) throw new IllegalArgumentException("Invalid helper thread count: " + count);
+        if (helperThreads != null) helperThreads.shutdownNow();
+        helperThreads = null;
+        helperWorkers = new SearchWorker[count];
+        for (int i = 0; i < count; i++){
+            helperWorkers[i] = new SearchWorker(this, i + 1);
+        }
+        if (count > 0){
+            helperThreads = Executors.newFixedThreadPool(count, runnable -> {
+                Thread thread = new Thread(runnable, "search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
     }
 
     /**
-     * @param alpha The best score the current player can guarantee
-     * @param beta The lowest score the opponent can guarantee
-     * @return The score of the position the search is currently evaluating
+     * @return The total number of positions searched by every worker in the last search.
      */
-    private int quiescenceSearch(int alpha, int beta, boolean maximising){
-        int bestScore = evaluatePosition();
+    public long getLastSearchNodeCount(){
+        return fullCount;
+    }
 
+    /**
+     * @return The number of positions searched by the main worker in the last search, which is part of getLastSearchNodeCount.
+     */
+    long getMainWorkerNodeCount(){
+        return mainWorker.getNodes();
+    }
 
-        if (maximising) {
-            if (bestScore > alpha){
-                alpha = bestScore;
-            }
-        } else {
-            if (bestScore < beta){
-                beta = bestScore;
-            }
-        }
+    /**
+     * Sets the number of best root moves the search finds lines for.
+     * Every line is searched to the same depth, so more lines make each iteration take longer.
+     * This shouldn't be called while a search is running.
+     * @param count The number of lines, where 1 only finds the best move.
+     */
+    public void setMultiPv(int count){
+        if (count < 1) throw new IllegalArgumentException("Invalid multi-PV count: " + count);
+        multiPv = count;
+    }
 
-        if (alpha >= beta){
-            return bestScore; // The opponent won't allow this move
-        }
+    /**
+     * Limits the moves searched at the root of the following searches, like the UCI searchmoves option.
+     * Moves that aren't legal are ignored, and if none of them are legal every move is searched.
+     * @param moves The UCI moves to search, or an empty list to search every legal move.
+     */
+    public void setSearchMoves(List<String> moves){
+        searchMoves = List.copyOf(moves);
+    }
 
-        List<Move> moveList = board.getPseudolegalMoves().stream().filter(move -> move.cell().isHasPiece()).toList();
-        //orderMoves(moveList);
-
-        if (maximising) {
-            for (Move move: moveList){
-                if (board.checkLegalMoves(move, false)){
-                    count++;
-                    int score = quiescenceSearch(alpha, beta, false);
-                    board.undoMove();
-
-                    if (score >= beta){
-                        return score;
-                    }
-                    if (score > alpha){
-                        alpha = score;
-                    }
-                }
-            }
-            return alpha;
-        }
-        else {
-            for (Move move: moveList){
-                if (board.checkLegalMoves(move, false)){
-                    count++;
-                    int score = quiescenceSearch(alpha, beta, true);
-                    board.undoMove();
-
-                    if (score <= alpha){
-                        return score;
-                    }
-                    if (score < beta){
-                        beta = score;
-                    }
-                }
-            }
-            return beta;
-        }
+    /**
+     * @return The UCI moves the root of the search is limited to, or an empty list for every legal move.
+     */
+    List<String> getSearchMoves(){
+        return searchMoves;
     }
 
     /**
-     * A debug function to count the number of moves upto the given depth.
-     * @param depth The depth the counting stops at
-     * @return The number of positions at the depth given.
+     * @return The number of best root moves the search finds lines for.
      */
-    public int countMoves(int depth){
-        if (depth == 0) return 1;
+    public int getMultiPv(){
+        return multiPv;
+    }
 
-        int count = 0;
-        for (Move move: board.getPseudolegalMoves()){
-            if (board.checkLegalMoves(move, false)){
-                count += countMovesX(depth - 1);
-                board.undoMove();
-            }
-        }
-        return count;
+    /**
+     * Sets the listener called with the lines of each finished iteration, on the thread running the search.
+     * @param listener The listener, or null to remove it.
+     */
+    public void setAnalysisListener(AnalysisListener listener){
+        analysisListener = listener;
     }
 
-    private int countMovesX(int depth){
-        if (depth == 0) return 1;
+    /**
+     * @return The lines of the last finished iteration of the last search, best first, which is empty if no iteration finished.
+     */
+    public List<AnalysisLine> getAnalysis(){
+        return analysis;
+    }
 
-        int count = 0;
-        for (Move move: board.getStoredPseudoLegalMoves()){
-            if (board.checkLegalMoves(move, false)){
-                count += countMovesX(depth - 1);
-                board.undoMove();
-            }
+    /**
+     * Stores the lines of a finished iteration and gives them to the analysis listener, called by the main search worker.
+     * @param lines The lines of the iteration, best first.
+     */
+    void reportIteration(List<AnalysisLine> lines){
+        analysis = lines;
+        AnalysisListener listener = analysisListener;
+        if (listener != null) listener.iterationFinished(lines);
+    }
+
+    /**
+     * @return The principal variation of the last search as UCI moves, which is empty if the move came from the book or a tablebase.
+     */
+    public List<String> getPrincipalVariation(){
+        List<String> moves = new ArrayList<>(principalVariation.length);
+        for (int move : principalVariation){
+            moves.add(PackedMove.toUci(move));
         }
-        return count;
+        return moves;
+    }
+
+    /**
+     * @return The time manager of the current search.
+     */
+    TimeManager getTimeManager(){
+        return timeManager;
+    }
+
+    /**
+     * @return The transposition table shared by every search worker.
+     */
+    TranspositionTable getTranspositionTable(){
+        return transpositionTable;
+    }
+
+    /**
+     * Replaces the transposition table with an empty one of the given size.
+     * This shouldn't be called while a search is running.
+     * @param sizeMB The size of the table in megabytes.
+     */
+    public void setTranspositionTableSize(int sizeMB){
+        transpositionTable = new TranspositionTable(sizeMB);
+    }
+
+    /**
+     * Removes every position from the transposition table, such as when a new game is started.
+     */
+    public void clearTranspositionTable(){
+        transpositionTable.clear();
+    }
+
+    /**
+     * A debug function to count the number of moves upto the given depth.
+     * @param depth The depth the counting stops at
+     * @return The number of positions at the depth given.
+     */
+    public int countMoves(int depth){
+        mainWorker.setBitBoard(new BitBoard(board));
+        return mainWorker.countMoves(depth);
     }
 
     /**
      * A hashmap of each piece class to its corresponding material value.
      */
-    private static final int[] pieceScores = {
+    static final int[] pieceScores = {
         100,
         325,
         325,
@@ -317,70 +455,37 @@ public class Engine{
         0
     };
 
-    private void orderMoves(List<Move> moveList){
-        int[] scores = new int[moveList.size()];
-        for (int i = 0; i < moveList.size(); i++) {
-            int score = 0;
-            Move move = moveList.get(i);
-            Cell cell = move.cell();
-            Piece p = move.p();
-
-            if (cell.isHasPiece()){
-                score = 10 * pieceScores[cell.getPiece().pieceNum] - pieceScores[p.pieceNum];
-            }
-
-            if (move instanceof PromotionMove){
-                Class<?> promotionClass = ((PromotionMove) move).promotionClass;
-                if (promotionClass == Knight.class) score += pieceScores[1];
-                else if (promotionClass == Bishop.class) score += pieceScores[2];
-                else if (promotionClass == Rook.class) score += pieceScores[3];
-                else if (promotionClass == Queen.class) score += pieceScores[4];
-            }
-            scores[i] = score;
-        }
-
-        sort(moveList, scores);
-    }
-    
-    private void sort(List<Move> moveList, int[] scores){
-        for (int i = 0; i < moveList.size(); i++) {
-            if (scores[i] > 0){
-                Move move = moveList.get(i);
-                int score = scores[i];
-                //perform insertion sort on this element
-                int j = i - 1;
-                while (j >= 0 && scores[j] < score){
-                    moveList.set(j + 1, moveList.get(j));
-                    scores[j + 1] = scores[j];
-                    j--;
-                }
-                moveList.set(j + 1, move);
-                scores[j + 1] = score;
-            }
-        }
+    /**
+     * Evaluates the current position of the board, by taking into account the material value and position of the piece on each side.
+     * @return The evaluation score of the current position.
+     */
+    public int evaluatePosition(){
+        BitBoard bitBoard = new BitBoard(board);
+        int evaluation = evaluate(bitBoard);
+        return bitBoard.getSideToMove() == engineSide ? evaluation : -evaluation;
     }
 
     /**
-     * Evaluates the current position, by taking into account the material value and position of the piece on each side.
+     * Evaluates a position, by taking into account the material value and position of the piece on each side.
      * Tries to encourage structural improvements in the opening, to focus on pawn structure.
-     * @return The evaluation score of the current position.
+     * @param bitBoard The bitboard of the position.
+     * @return The evaluation score of the position, from the side of the colour to move.
      */
-    public int evaluatePosition(){
+    static int evaluate(BitBoard bitBoard){
         int evaluation = 0;
-        for (Piece p: board.pieces){
+        for (int piece = 0; piece < 12; piece++){
+            int pieceNum = piece % 6;
+            int[] table = pieceTables[pieceNum];
+            int colour = piece / 6;
+            long pieces = bitBoard.getPieceBitBoard(piece);
             int score = 0;
-            score += pieceScores[p.pieceNum];
-            score += readTable(switch (p.pieceNum){
-                case 0 -> pawnTable;
-                case 1 -> knightTable;
-                case 2 -> bishopTable;
-                case 3 -> rookTable;
-                case 4 -> queenTable;
-                case 5 -> kingMiddleTable;
-                default -> pawnTable;
-            }, p);
-
-            if (p.getColour() == engineColour) {
+            while (pieces != 0){
+                int square = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                score += pieceScores[pieceNum] + readTable(table, square, colour);
+            }
+
+            if (colour == bitBoard.getSideToMove()) {
                 evaluation += score;
             } else {
                 evaluation -= score;
@@ -393,14 +498,13 @@ public class Engine{
     /**
      * Gets the positional score of the piece from the table given, flipping the row if the piece's colour is black.
      * @param table The table the score is taken from.
-     * @param piece The piece used for the row, column of the table.
+     * @param square The square of the piece (row * 8 + col).
+     * @param colour The colour of the piece (0 white, 1 black).
      * @return The score of the piece position from the table.
      */
-    private int readTable(int[] table, Piece piece){
-        int index;
-        if (piece.getColour() == Colour.WHITE) index = 8 * (7 - piece.getRow()) + piece.getCol();
-        else index = 8 * piece.getRow() + piece.getCol();
-        return table[index];
+    private static int readTable(int[] table, int square, int colour){
+        // the tables are written with the 8th row first, so white pieces flip the row
+        return table[colour == BitBoard.WHITE ? square ^ 56 : square];
     }
 
     /**
@@ -500,4 +604,9 @@ public class Engine{
             -30,-30,  0,  0,  0,  0,-30,-30,
             -50,-30,-30,-30,-30,-30,-30,-50
     };
+
+    /**
+     * The positional score tables for each piece number.
+     */
+    private static final int[][] pieceTables = {pawnTable, knightTable, bishopTable, rookTable, queenTable, kingMiddleTable};
 }
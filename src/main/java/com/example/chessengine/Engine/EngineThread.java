@@ -1,5 +1,6 @@
 package com.example.chessengine.Engine;
 
+import com.example.chessengine.Board.BitBoard;
 import com.example.chessengine.Board.Moves.Move;
 import javafx.application.Platform;
 
@@ -8,6 +9,9 @@ import java.util.function.Consumer;
 
 /**
  * The EngineThread class runs an Engine object on a separate thread.
+ * While the opponent is thinking, it can ponder, searching the position after the reply the engine expects.
+ * If the opponent plays that reply (a ponder hit), the ponder search carries on as the search for the next move, with its time limit starting then.
+ * Otherwise (a ponder miss), it is stopped and a new search is started, which still uses the transposition table the ponder search filled.
  */
 public class EngineThread extends Thread{
     /**
@@ -25,8 +29,20 @@ public class EngineThread extends Thread{
      */
     private volatile boolean running = true;
 
-    private final ScheduledExecutorService schedular = Executors.newSingleThreadScheduledExecutor();
-    private ScheduledFuture<?> scheduledStop;
+    /**
+     * If a ponder search is queued or running.
+     */
+    private boolean pondering = false;
+
+    /**
+     * The zobrist key of the position being pondered.
+     */
+    private long ponderKey;
+
+    /**
+     * The function given the result of the ponder search after a ponder hit, or null if there hasn't been one.
+     */
+    private Consumer<Move> ponderHitCallBack;
 
     /**
      * @param engine The engine to be run on a separate thread.
@@ -52,18 +68,86 @@ public class EngineThread extends Thread{
     }
 
     /**
-     * Adds a command to the queue to get the next engine move.
+     * Adds a command to the queue to get the next engine move, searching for a fixed amount of time.
      * @param callBack The function run, when move is returned.
+     * @param time The time to search for in seconds.
      */
     public void requestMove(Consumer<Move> callBack, int time){
+        long moveTime = TimeUnit.SECONDS.toMillis(time);
+        if (ponderHit(callBack, () -> engine.getTimeManager().startMoveTime(moveTime))) return;
+        commandQueue.offer(() -> {
+            Move move = engine.getNextMove(moveTime);
+            Platform.runLater(() -> callBack.accept(move));
+        });
+    }
+
+    /**
+     * Adds a command to the queue to get the next engine move, with the search time worked out from the engine's clock.
+     * @param callBack The function run, when move is returned.
+     * @param remaining The time left on the engine's clock in milliseconds.
+     * @param increment The time added to the clock after each move in milliseconds.
+     * @param movesToGo The number of moves until more time is added, or 0 if the time left is for the rest of the game.
+     */
+    public void requestMove(Consumer<Move> callBack, long remaining, long increment, int movesToGo){
+        if (ponderHit(callBack, () -> engine.getTimeManager().start(remaining, increment, movesToGo))) return;
         commandQueue.offer(() -> {
-            scheduledStop = schedular.schedule(engine::stopCurrentSearch, time, TimeUnit.SECONDS);
-            Move move = engine.getNextMove();
-            scheduledStop.cancel(false);
+            Move move = engine.getNextMove(remaining, increment, movesToGo);
             Platform.runLater(() -> callBack.accept(move));
         });
     }
 
+    /**
+     * Adds a command to the queue to ponder on the position after the reply expected by the last search, until the next move is requested.
+     * This should be called after the engine's move has been made on the board. Nothing is done if the last search didn't give a reply.
+     */
+    public synchronized void startPondering(){
+        if (pondering) return;
+        BitBoard position = engine.getPonderPosition();
+        if (position == null) return;
+        pondering = true;
+        ponderKey = position.getZobristKey();
+        commandQueue.offer(() -> {
+            synchronized (this){
+                // the ponder search was already missed before it started
+                if (!pondering) return;
+                engine.stopSearch = false;
+                // after a ponder hit before the search started, the time limit has already been started
+                if (ponderHitCallBack == null) engine.getTimeManager().startInfinite();
+            }
+            engine.ponder(position);
+            Consumer<Move> callBack;
+            synchronized (this){
+                pondering = false;
+                callBack = ponderHitCallBack;
+                ponderHitCallBack = null;
+            }
+            if (callBack != null){
+                Move move = engine.getSearchedMove();
+                Platform.runLater(() -> callBack.accept(move));
+            }
+        });
+    }
+
+    /**
+     * Checks if the position on the board is the one being pondered, to be called when the next move is requested.
+     * On a ponder hit, the time limit is started and the ponder search gives its move to the callback when it finishes.
+     * On a ponder miss, the ponder search is stopped.
+     * @param callBack The function run, when the move is returned.
+     * @param startTimer Starts the time manager's limits for the move.
+     * @return If it was a ponder hit, so a new search isn't needed.
+     */
+    private synchronized boolean ponderHit(Consumer<Move> callBack, Runnable startTimer){
+        if (!pondering) return false;
+        if (engine.getPositionKey() == ponderKey){
+            startTimer.run();
+            ponderHitCallBack = callBack;
+            return true;
+        }
+        pondering = false;
+        engine.stopCurrentSearch();
+        return false;
+    }
+
     /**
      * Adds a command to the queue to get the position count at the given depth.
      * @param callBack The function run when the count is returned.
@@ -81,7 +165,7 @@ public class EngineThread extends Thread{
      */
     public void stopEngine(){
         running = false;
-        schedular.shutdownNow();
+        engine.stopCurrentSearch();
         interrupt();
     }
 
@@ -0,0 +1,169 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.BitBoard;
+import com.example.chessengine.Board.Moves.PackedMove;
+
+import java.util.Arrays;
+
+/**
+ * The History class scores quiet moves by how often they have caused beta cutoffs, for ordering the quiet moves in the search.
+ * The butterfly table has a score for each colour and from and to square, which is increased for the quiet move causing a cutoff,
+ * and decreased for the quiet moves searched before it that didn't.
+ * The continuation history does the same for each pair of the previous move's piece and to square and the move's piece and to square,
+ * so moves that work well as a reply to a certain move are tried first.
+ * The countermove table holds the last quiet move that caused a cutoff as a reply to each piece and to square of the previous move.
+ * Scores are kept between -MAX_HISTORY and MAX_HISTORY, with large bonuses having less effect on scores that are already large,
+ * and are halved between iterations so newer results count for more.
+ * Each search worker has its own history, so none of the tables need to be thread safe.
+ */
+public class History {
+    /**
+     * The highest score a move can have.
+     */
+    public static final int MAX_HISTORY = 16384;
+
+    /**
+     * The number of piece and to square pairs, indexed by piece index * 64 + square.
+     */
+    private static final int PIECE_SQUARES = 12 * 64;
+
+    /**
+     * The score of each quiet move, indexed by colour (0 white, 1 black), from square and to square.
+     */
+    private final int[][][] butterfly = new int[2][64][64];
+
+    /**
+     * The score of each quiet move's piece and to square after the previous move's piece and to square,
+     * indexed by previous piece square * PIECE_SQUARES + piece square.
+     * It is stored as shorts, as the scores always fit and it halves the size of the table.
+     */
+    private final short[] continuation = new short[PIECE_SQUARES * PIECE_SQUARES];
+
+    /**
+     * The quiet move that last caused a cutoff after each previous move's piece and to square, or PackedMove.NONE.
+     */
+    private final int[] countermoves = new int[PIECE_SQUARES];
+
+    /**
+     * Gets the start of the continuation history row for the previous move, to be passed to getQuietScore.
+     * @param bitBoard The bitboard of the current position.
+     * @return The index of the row for the previous move, or -1 if there isn't a previous move.
+     */
+    public int continuationRow(BitBoard bitBoard) {
+        int pieceSquare = previousPieceSquare(bitBoard);
+        return pieceSquare == -1 ? -1 : pieceSquare * PIECE_SQUARES;
+    }
+
+    /**
+     * @param bitBoard The bitboard of the current position.
+     * @param move The packed quiet move.
+     * @param continuationRow The continuation history row from continuationRow.
+     * @return The history score of the move, adding its butterfly and continuation scores.
+     */
+    public int getQuietScore(BitBoard bitBoard, int move, int continuationRow) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int score = butterfly[bitBoard.getSideToMove()][from][to];
+        if (continuationRow != -1) score += continuation[continuationRow + bitBoard.getPiece(from) * 64 + to];
+        return score;
+    }
+
+    /**
+     * @param bitBoard The bitboard of the current position.
+     * @return The quiet move that last refuted the previous move, or PackedMove.NONE if there isn't one.
+     */
+    public int getCountermove(BitBoard bitBoard) {
+        int pieceSquare = previousPieceSquare(bitBoard);
+        return pieceSquare == -1 ? PackedMove.NONE : countermoves[pieceSquare];
+    }
+
+    /**
+     * Updates the tables after a quiet move caused a beta cutoff, increasing its scores and decreasing the scores of
+     * the quiet moves searched before it, by an amount based on the depth, and making it the countermove to the previous move.
+     * @param bitBoard The bitboard of the position the moves were searched from.
+     * @param bestMove The quiet move that caused the cutoff.
+     * @param quietsSearched The quiet moves searched before it at the same node.
+     * @param quietCount The number of moves in quietsSearched.
+     * @param depth The depth left at the node.
+     */
+    public void update(BitBoard bitBoard, int bestMove, int[] quietsSearched, int quietCount, int depth) {
+        int bonus = Math.min(depth * depth, 400);
+        int[][] table = butterfly[bitBoard.getSideToMove()];
+        int previousPieceSquare = previousPieceSquare(bitBoard);
+        int continuationRow = previousPieceSquare == -1 ? -1 : previousPieceSquare * PIECE_SQUARES;
+
+        addBonus(bitBoard, table, continuationRow, bestMove, bonus);
+        for (int i = 0; i < quietCount; i++) {
+            if (quietsSearched[i] != bestMove) addBonus(bitBoard, table, continuationRow, quietsSearched[i], -bonus);
+        }
+        if (previousPieceSquare != -1) countermoves[previousPieceSquare] = bestMove;
+    }
+
+    /**
+     * Adds the bonus to the move's scores, scaled down as the score gets closer to MAX_HISTORY so it never goes past it.
+     * @param bitBoard The bitboard of the position the move was searched from.
+     * @param table The butterfly table of the colour making the move.
+     * @param continuationRow The continuation history row of the previous move, or -1 if there isn't one.
+     * @param move The packed move.
+     * @param bonus The amount to add, which is negative for moves that didn't cause a cutoff.
+     */
+    private void addBonus(BitBoard bitBoard, int[][] table, int continuationRow, int move, int bonus) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        table[from][to] += gravity(table[from][to], bonus);
+        if (continuationRow != -1) {
+            int index = continuationRow + bitBoard.getPiece(from) * 64 + to;
+            int score = continuation[index] + gravity(continuation[index], bonus);
+            continuation[index] = (short) Math.max(-MAX_HISTORY, Math.min(score, MAX_HISTORY));
+        }
+    }
+
+    /**
+     * @param score The current score.
+     * @param bonus The bonus being added.
+     * @return The change to the score, which gets smaller as the score gets closer to MAX_HISTORY in the direction of the bonus.
+     */
+    private static int gravity(int score, int bonus) {
+        return bonus * 32 - score * Math.abs(bonus) * 32 / MAX_HISTORY;
+    }
+
+    /**
+     * @param bitBoard The bitboard of the current position.
+     * @return The piece index * 64 + to square of the previous move, or -1 if there isn't a previous move.
+     */
+    private static int previousPieceSquare(BitBoard bitBoard) {
+        int previousMove = bitBoard.getPreviousMove();
+        if (previousMove == PackedMove.NONE) return -1;
+        int to = PackedMove.to(previousMove);
+        return bitBoard.getPiece(to) * 64 + to;
+    }
+
+    /**
+     * Halves every score, called between iterations so the results of the last iteration count for more than older ones.
+     */
+    public void age() {
+        for (int[][] colourTable : butterfly) {
+            for (int[] fromTable : colourTable) {
+                for (int to = 0; to < 64; to++) {
+                    fromTable[to] /= 2;
+                }
+            }
+        }
+        for (int i = 0; i < continuation.length; i++) {
+            continuation[i] /= 2;
+        }
+    }
+
+    /**
+     * Sets every score back to 0 and removes every countermove.
+     */
+    public void clear() {
+        for (int[][] colourTable : butterfly) {
+            for (int[] fromTable : colourTable) {
+                Arrays.fill(fromTable, 0);
+            }
+        }
+        Arrays.fill(continuation, (short) 0);
+        Arrays.fill(countermoves, PackedMove.NONE);
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.BitBoard;
+import com.example.chessengine.Board.Moves.PackedMove;
+
+/**
+ * The MovePicker class gives the moves at a node of the search one at a time, in stages, so the later stages are only generated if they are needed.
+ * The hash move is tried first, then the captures and promotions that don't lose material in most valuable victim, least valuable attacker order,
+ * then the killer moves and the countermove to the previous move, then the quiet moves in history score order,
+ * and finally the captures that lose material according to static exchange evaluation.
+ * As most beta cutoffs happen on the hash move or a capture, the quiet moves often never need to be generated.
+ * It writes the moves into the move and score buffers of a search stack frame, so it doesn't create any arrays.
+ */
+public class MovePicker {
+    /**
+     * The stages the move picker goes through.
+     */
+    private static final int HASH_MOVE = 0, GENERATE_CAPTURES = 1, CAPTURES = 2, KILLERS = 3, COUNTERMOVE = 4, GENERATE_QUIETS = 5, QUIETS = 6,
+            BAD_CAPTURES = 7, DONE = 8;
+
+    /**
+     * The buffer the moves are generated into, with the captures first and the quiet moves after them.
+     */
+    private final int[] moves;
+
+    /**
+     * The ordering score of each move, in the same order as the moves.
+     */
+    private final int[] scores;
+
+    /**
+     * The captures that lose material, which are put off until after the quiet moves.
+     */
+    private final int[] badCaptures = new int[BitBoard.MAX_MOVES_IN_POSITION];
+
+    /**
+     * The number of moves in badCaptures.
+     */
+    private int badCaptureCount;
+
+    /**
+     * The bitboard the moves are generated for.
+     */
+    private BitBoard bitBoard;
+
+    /**
+     * The current stage.
+     */
+    private int stage;
+
+    /**
+     * The index of the next move to give in the current stage.
+     */
+    private int index;
+
+    /**
+     * The number of captures generated, which is also where the quiet moves start.
+     */
+    private int captureCount;
+
+    /**
+     * The total number of moves generated.
+     */
+    private int moveCount;
+
+    /**
+     * If only the captures and promotions should be given, for the quiescence search.
+     */
+    private boolean capturesOnly;
+
+    /**
+     * If the quiet moves that haven't been given yet should be skipped, for late move pruning.
+     */
+    private boolean skipQuiets;
+
+    /**
+     * The move from a previous search of the position, tried first.
+     */
+    private int hashMove;
+
+    /**
+     * The quiet moves that caused a beta cutoff at the same ply in other positions, tried after the captures.
+     */
+    private final int[] killers = new int[2];
+
+    /**
+     * The quiet move that last refuted the previous move, tried after the killer moves.
+     */
+    private int countermove;
+
+    /**
+     * The history scores used to order the quiet moves.
+     */
+    private History history;
+
+    /**
+     * @param moves The move buffer of the search stack frame.
+     * @param scores The score buffer of the search stack frame.
+     */
+    public MovePicker(int[] moves, int[] scores) {
+        this.moves = moves;
+        this.scores = scores;
+    }
+
+    /**
+     * Starts picking moves for a node of the main search.
+     * @param bitBoard The bitboard of the position.
+     * @param hashMove The move to try first, or PackedMove.NONE if there isn't one. It is checked to be legal first.
+     * @param killer1 The first killer move, or PackedMove.NONE.
+     * @param killer2 The second killer move, or PackedMove.NONE.
+     * @param history The history scores used to order the quiet moves.
+     */
+    public void init(BitBoard bitBoard, int hashMove, int killer1, int killer2, History history) {
+        this.bitBoard = bitBoard;
+        this.hashMove = hashMove;
+        this.history = history;
+        countermove = PackedMove.NONE;
+        killers[0] = killer1;
+        killers[1] = killer2;
+        capturesOnly = false;
+        skipQuiets = false;
+        stage = HASH_MOVE;
+    }
+
+    /**
+     * Starts picking only the captures and promotions that don't lose material, for the quiescence search.
+     * @param bitBoard The bitboard of the position.
+     */
+    public void initCaptures(BitBoard bitBoard) {
+        this.bitBoard = bitBoard;
+        hashMove = PackedMove.NONE;
+        capturesOnly = true;
+        skipQuiets = false;
+        stage = GENERATE_CAPTURES;
+    }
+
+    /**
+     * Stops any more quiet moves being given, including the killer moves and countermove.
+     * Captures and promotions are still given if they haven't all been given yet, including the ones that lose material.
+     */
+    public void skipQuiets() {
+        skipQuiets = true;
+    }
+
+    /**
+     * Gets the next move, generating the next stage if the current one has run out.
+     * Every legal move is given exactly once, unless only the captures were asked for.
+     * Each stage falls through into the next one when it runs out of moves.
+     * @return The next legal packed move, or PackedMove.NONE if there are none left.
+     */
+    @SuppressWarnings("fallthrough")
+    public int next() {
+        switch (stage) {
+            case HASH_MOVE:
+                stage = GENERATE_CAPTURES;
+                if (bitBoard.isLegal(hashMove)) return hashMove;
+                hashMove = PackedMove.NONE;
+                // fall through
+            case GENERATE_CAPTURES:
+                captureCount = bitBoard.generateCaptures(moves, 0);
+                scoreCaptures();
+                badCaptureCount = 0;
+                index = 0;
+                stage = CAPTURES;
+                // fall through
+            case CAPTURES:
+                while (index < captureCount) {
+                    int capture = pickBest(captureCount);
+                    if (capture == hashMove) continue;
+                    if (bitBoard.staticExchangeEvaluation(capture) < 0) {
+                        // the quiescence search doesn't search captures that lose material at all
+                        if (!capturesOnly) badCaptures[badCaptureCount++] = capture;
+                        continue;
+                    }
+                    return capture;
+                }
+                if (capturesOnly) {
+                    stage = DONE;
+                    return PackedMove.NONE;
+                }
+                index = 0;
+                stage = KILLERS;
+                // fall through
+            case KILLERS:
+                while (index < killers.length && !skipQuiets) {
+                    int killer = killers[index++];
+                    if (killer != hashMove && isQuiet(killer) && bitBoard.isLegal(killer)) return killer;
+                }
+                stage = COUNTERMOVE;
+                // fall through
+            case COUNTERMOVE:
+                stage = GENERATE_QUIETS;
+                if (!skipQuiets) {
+                    int move = history.getCountermove(bitBoard);
+                    if (move != hashMove && move != killers[0] && move != killers[1] && isQuiet(move) && bitBoard.isLegal(move)) {
+                        countermove = move;
+                        return move;
+                    }
+                }
+                // fall through
+            case GENERATE_QUIETS:
+                moveCount = skipQuiets ? captureCount : bitBoard.generateQuiets(moves, captureCount);
+                scoreQuiets();
+                index = captureCount;
+                stage = QUIETS;
+                // fall through
+            case QUIETS:
+                while (index < moveCount && !skipQuiets) {
+                    int quiet = pickBest(moveCount);
+                    if (quiet != hashMove && quiet != killers[0] && quiet != killers[1] && quiet != countermove) return quiet;
+                }
+                index = 0;
+                stage = BAD_CAPTURES;
+                // fall through
+            case BAD_CAPTURES:
+                if (index < badCaptureCount) return badCaptures[index++];
+                stage = DONE;
+                // fall through
+            default:
+                return PackedMove.NONE;
+        }
+    }
+
+    /**
+     * Scores the captures with the value of the piece captured times 10, minus the value of the piece capturing,
+     * adding the value of the promotion piece for promotions.
+     */
+    private void scoreCaptures() {
+        for (int i = 0; i < captureCount; i++) {
+            int move = moves[i];
+            int score = 0;
+            if (PackedMove.isCapture(move)) {
+                int victim = PackedMove.flag(move) == PackedMove.EN_PASSANT ? BitBoard.PAWN : bitBoard.getPiece(PackedMove.to(move)) % 6;
+                score = 10 * Engine.pieceScores[victim] - Engine.pieceScores[bitBoard.getPiece(PackedMove.from(move)) % 6];
+            }
+            if (PackedMove.isPromotion(move)) {
+                score += Engine.pieceScores[PackedMove.promotionPiece(move)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Scores the quiet moves with their butterfly and continuation history scores.
+     */
+    private void scoreQuiets() {
+        int continuationRow = history.continuationRow(bitBoard);
+        for (int i = captureCount; i < moveCount; i++) {
+            scores[i] = history.getQuietScore(bitBoard, moves[i], continuationRow);
+        }
+    }
+
+    /**
+     * @param move The packed move.
+     * @return If the move isn't PackedMove.NONE, a capture or a promotion.
+     */
+    private static boolean isQuiet(int move) {
+        return move != PackedMove.NONE && !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+    }
+
+    /**
+     * Finds the highest scoring move left in the current stage and swaps it to the current index,
+     * so the moves are only sorted as far as they are used.
+     * @param end The index after the last move of the current stage.
+     * @return The highest scoring move left.
+     */
+    private int pickBest(int end) {
+        int best = index;
+        for (int i = index + 1; i < end; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        int move = moves[best];
+        int score = scores[best];
+        moves[best] = moves[index];
+        scores[best] = scores[index];
+        moves[index] = move;
+        scores[index] = score;
+        index++;
+        return move;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.BitBoard;
+import com.example.chessengine.Board.Moves.PackedMove;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The RootMoves class holds the legal moves at the root of the search, with the score, the number of positions searched
+ * and the principal variation of each move, kept between iterations.
+ * After each search of the root the moves are sorted by score, so the best move is searched first in the next iteration.
+ * The moves that didn't raise alpha all have the same score, so they are sorted by their score in the last iteration,
+ * keeping the multi-PV lines in order, and then by the number of positions their search took,
+ * as a move that was harder to refute is more likely to become the best move.
+ * For multi-PV analysis, the first moves are the best lines found so far in the iteration, and the root search starts after them.
+ */
+class RootMoves {
+    /**
+     * The score of a move that hasn't been searched, or didn't raise alpha, which is lower than any real score.
+     */
+    static final int NO_SCORE = -Engine.mateScore - 1;
+
+    /**
+     * The root moves.
+     */
+    private final int[] moves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+
+    /**
+     * The score of each move in the current iteration.
+     */
+    private final int[] scores = new int[BitBoard.MAX_MOVES_IN_POSITION];
+
+    /**
+     * The score of each move in the last iteration.
+     */
+    private final int[] previousScores = new int[BitBoard.MAX_MOVES_IN_POSITION];
+
+    /**
+     * The number of positions searched after each move in the current iteration.
+     */
+    private final long[] nodeCounts = new long[BitBoard.MAX_MOVES_IN_POSITION];
+
+    /**
+     * The principal variation of each move, starting with the move, created the first time a root has that many moves.
+     */
+    private final int[][] pvs = new int[BitBoard.MAX_MOVES_IN_POSITION][];
+
+    /**
+     * The number of moves in each principal variation.
+     */
+    private final int[] pvLengths = new int[BitBoard.MAX_MOVES_IN_POSITION];
+
+    /**
+     * The number of root moves.
+     */
+    private int size;
+
+    /**
+     * If the search is limited to some of the legal moves, so the score of the root isn't the score of the position.
+     */
+    private boolean restricted;
+
+    /**
+     * Sets the root moves to the legal moves of a position, at the start of a search.
+     * @param bitBoard The bitboard of the root position.
+     * @param searchMoves The UCI moves the search is limited to, or an empty list for every legal move.
+     *                    If none of them are legal, every legal move is searched.
+     */
+    void init(BitBoard bitBoard, List<String> searchMoves) {
+        int count = bitBoard.generateMoves(moves);
+        size = 0;
+        for (int i = 0; i < count; i++) {
+            if (searchMoves.isEmpty() || searchMoves.contains(PackedMove.toUci(moves[i]))) moves[size++] = moves[i];
+        }
+        if (size == 0) size = bitBoard.generateMoves(moves);
+        restricted = size < count;
+
+        for (int i = 0; i < size; i++) {
+            if (pvs[i] == null) pvs[i] = new int[SearchStack.MAX_PLY];
+            scores[i] = NO_SCORE;
+            previousScores[i] = NO_SCORE;
+            nodeCounts[i] = 0;
+            pvs[i][0] = moves[i];
+            pvLengths[i] = 1;
+        }
+    }
+
+    /**
+     * Keeps the scores of the last iteration and clears the node counts, at the start of each iteration.
+     */
+    void startIteration() {
+        System.arraycopy(scores, 0, previousScores, 0, size);
+        Arrays.fill(nodeCounts, 0, size, 0);
+    }
+
+    /**
+     * Clears the scores of the moves from an index, before they are searched, so a move that isn't searched again isn't sorted by an old score.
+     * @param start The index of the first move to clear.
+     */
+    void clearScores(int start) {
+        Arrays.fill(scores, start, size, NO_SCORE);
+    }
+
+    /**
+     * @return The number of root moves.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return If the search is limited to some of the legal moves.
+     */
+    boolean isRestricted() {
+        return restricted;
+    }
+
+    /**
+     * @param index The index of the root move.
+     * @return The packed move.
+     */
+    int move(int index) {
+        return moves[index];
+    }
+
+    /**
+     * @param index The index of the root move.
+     * @return The score of the move in the current iteration, or NO_SCORE.
+     */
+    int score(int index) {
+        return scores[index];
+    }
+
+    /**
+     * @param index The index of the root move.
+     * @return The score of the move in the last iteration, or NO_SCORE.
+     */
+    int previousScore(int index) {
+        return previousScores[index];
+    }
+
+    /**
+     * @param index The index of the root move.
+     * @return The number of positions searched after the move in the current iteration.
+     */
+    long nodeCount(int index) {
+        return nodeCounts[index];
+    }
+
+    /**
+     * @return The total number of positions searched after every root move in the current iteration.
+     */
+    long totalNodeCount() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += nodeCounts[i];
+        }
+        return total;
+    }
+
+    /**
+     * @param index The index of the root move.
+     * @return The principal variation of the move, which is the array used by this object, so it mustn't be changed.
+     */
+    int[] pv(int index) {
+        return pvs[index];
+    }
+
+    /**
+     * @param index The index of the root move.
+     * @return The number of moves in the principal variation of the move.
+     */
+    int pvLength(int index) {
+        return pvLengths[index];
+    }
+
+    /**
+     * @param move The packed move.
+     * @return The index of the move, or -1 if it isn't a root move.
+     */
+    int indexOf(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds to the number of positions searched after a move.
+     * @param index The index of the root move.
+     * @param nodes The number of positions searched.
+     */
+    void addNodes(int index, long nodes) {
+        nodeCounts[index] += nodes;
+    }
+
+    /**
+     * Sets the score of a move and its principal variation, after it raised alpha or was the first move searched.
+     * @param index The index of the root move.
+     * @param score The score of the move.
+     * @param childPv The principal variation of the position after the move.
+     * @param childPvLength The number of moves in childPv.
+     */
+    void update(int index, int score, int[] childPv, int childPvLength) {
+        scores[index] = score;
+        System.arraycopy(childPv, 0, pvs[index], 1, Math.min(childPvLength, SearchStack.MAX_PLY - 1));
+        pvLengths[index] = Math.min(childPvLength, SearchStack.MAX_PLY - 1) + 1;
+    }
+
+    /**
+     * Sets the score of a move that didn't raise alpha to NO_SCORE, keeping its principal variation.
+     * @param index The index of the root move.
+     */
+    void failLow(int index) {
+        scores[index] = NO_SCORE;
+    }
+
+    /**
+     * @param score The score of a move.
+     * @param previousScore The score of the move in the last iteration.
+     * @param nodeCount The number of positions searched after the move.
+     * @param index The index of another root move.
+     * @return If the move should be sorted before the move at the index.
+     */
+    private boolean isBefore(int score, int previousScore, long nodeCount, int index) {
+        if (score != scores[index]) return score > scores[index];
+        if (previousScore != previousScores[index]) return previousScore > previousScores[index];
+        return nodeCount > nodeCounts[index];
+    }
+
+    /**
+     * Sorts the moves between two indices by score, highest first, then by the score in the last iteration and then by the number of positions searched,
+     * keeping the order of equal moves.
+     * @param start The index of the first move to sort.
+     * @param end The index after the last move to sort.
+     */
+    void sort(int start, int end) {
+        for (int i = start + 1; i < end; i++) {
+            int move = moves[i];
+            int score = scores[i];
+            int previousScore = previousScores[i];
+            long nodeCount = nodeCounts[i];
+            int[] pv = pvs[i];
+            int pvLength = pvLengths[i];
+            int j = i - 1;
+            while (j >= start && isBefore(score, previousScore, nodeCount, j)) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                previousScores[j + 1] = previousScores[j];
+                nodeCounts[j + 1] = nodeCounts[j];
+                pvs[j + 1] = pvs[j];
+                pvLengths[j + 1] = pvLengths[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+            previousScores[j + 1] = previousScore;
+            nodeCounts[j + 1] = nodeCount;
+            pvs[j + 1] = pv;
+            pvLengths[j + 1] = pvLength;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.BitBoard;
+import com.example.chessengine.Board.Moves.PackedMove;
+
+/**
+ * The SearchStack class holds a frame for each ply of the search, each with its own move and score buffers.
+ * The frames are created once and reused for every node at that ply for the whole iterative deepening run,
+ * so the search doesn't create any arrays while it is running.
+ */
+public class SearchStack {
+    /**
+     * The maximum ply the search and quiescence search can reach.
+     */
+    public static final int MAX_PLY = 128;
+
+    /**
+     * The frame for each ply.
+     */
+    private final Frame[] frames = new Frame[MAX_PLY];
+
+    /**
+     * Constructor to create a new search stack, creating every frame.
+     */
+    public SearchStack() {
+        for (int i = 0; i < MAX_PLY; i++) {
+            frames[i] = new Frame();
+        }
+    }
+
+    /**
+     * @param ply The ply of the search (0 to MAX_PLY - 1 inclusive).
+     * @return The frame for that ply.
+     */
+    public Frame get(int ply) {
+        return frames[ply];
+    }
+
+    /**
+     * Removes the killer moves from every frame, as they are from positions of the last search.
+     */
+    public void clearKillers() {
+        for (Frame frame : frames) {
+            frame.killer1 = PackedMove.NONE;
+            frame.killer2 = PackedMove.NONE;
+        }
+    }
+
+    /**
+     * The Frame class holds the buffers used by the search at one ply.
+     */
+    public static class Frame {
+        /**
+         * The packed moves generated at this ply.
+         */
+        public final int[] moves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+
+        /**
+         * The ordering score of each move, in the same order as the moves.
+         */
+        public final int[] scores = new int[BitBoard.MAX_MOVES_IN_POSITION];
+
+        /**
+         * The number of moves in the moves array.
+         */
+        public int moveCount;
+
+        /**
+         * The quiet moves searched at this ply that didn't cause a beta cutoff, which have their history scores decreased.
+         */
+        public final int[] quietsSearched = new int[BitBoard.MAX_MOVES_IN_POSITION];
+
+        /**
+         * The number of moves in quietsSearched.
+         */
+        public int quietCount;
+
+        /**
+         * The 2 most recent quiet moves that caused a beta cutoff at this ply, in any position.
+         */
+        public int killer1, killer2;
+
+        /**
+         * The move left out of the search at this ply while checking if the hash move is singular, or PackedMove.NONE.
+         */
+        public int excludedMove;
+
+        /**
+         * The number of plies the search has been extended by on the path to this ply.
+         */
+        public int extensions;
+
+        /**
+         * The principal variation from this ply, the line of best moves found for both sides, which is copied up to the ply above.
+         */
+        public final int[] pv = new int[MAX_PLY];
+
+        /**
+         * The number of moves in pv.
+         */
+        public int pvLength;
+
+        /**
+         * If every move on the path to this ply is on the principal variation of the last iteration,
+         * so the next move on it is searched first.
+         */
+        public boolean followPv;
+
+        /**
+         * The move picker for this ply, which generates into the moves and scores buffers of this frame.
+         */
+        public final MovePicker movePicker = new MovePicker(moves, scores);
+    }
+}
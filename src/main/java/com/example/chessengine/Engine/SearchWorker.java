@@ -0,0 +1,819 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.BitBoard;
+import com.example.chessengine.Board.Moves.PackedMove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The SearchWorker class runs the iterative deepening search for one thread.
+ * Each worker has its own copy of the position and its own search stack, so workers can search at the same time,
+ * only sharing the engine's transposition table and stop flag.
+ * The main worker's result is the move the engine plays, and helper workers fill the transposition table with results
+ * that the main worker can use, starting at different depths so they don't all search the same positions at the same time.
+ */
+class SearchWorker {
+    /**
+     * A score higher than any position can have, used for the widest window.
+     */
+    private static final int INFINITY = Engine.mateScore + 1;
+
+    /**
+     * The depth aspiration windows are used from, as the scores of shallower iterations change too much.
+     */
+    private static final int ASPIRATION_DEPTH = 4;
+
+    /**
+     * The starting distance of the aspiration window either side of the last iteration's score.
+     */
+    private static final int ASPIRATION_WINDOW = 25;
+
+    /**
+     * Scores at least this far from 0 are mate scores.
+     */
+    private static final int MATE_BOUND = Engine.mateScore - SearchStack.MAX_PLY;
+
+    /**
+     * The depth null move pruning is used from.
+     */
+    private static final int NULL_MOVE_DEPTH = 3;
+
+    /**
+     * The highest depth reverse futility pruning, razoring, futility pruning and late move pruning are used at.
+     */
+    private static final int FRONTIER_DEPTH = 3;
+
+    /**
+     * The margin per ply of depth for reverse futility pruning, where a static evaluation this far above beta is returned straight away.
+     */
+    private static final int REVERSE_FUTILITY_MARGIN = 100;
+
+    /**
+     * The margin per ply of depth for futility pruning, where quiet moves aren't searched if the static evaluation is this far below alpha.
+     */
+    private static final int FUTILITY_MARGIN = 150;
+
+    /**
+     * The material per ply of depth a capture can lose, according to static exchange evaluation, before it is pruned at frontier nodes.
+     */
+    private static final int SEE_PRUNING_MARGIN = 100;
+
+    /**
+     * The margin per ply of depth for razoring, where the quiescence search is used if the static evaluation is this far below alpha.
+     */
+    private static final int RAZOR_MARGIN = 300;
+
+    /**
+     * The extra material allowed for positional gains when delta pruning captures in the quiescence search.
+     */
+    private static final int DELTA_MARGIN = 200;
+
+    /**
+     * The most plies the quiescence search can go past the end of the main search, after which the position is evaluated as it is.
+     */
+    private static final int QUIESCENCE_MAX_PLY = 32;
+
+    /**
+     * The depth late move reductions are used from.
+     */
+    private static final int REDUCTION_DEPTH = 3;
+
+    /**
+     * The number of nodes the main worker searches between checking the time.
+     */
+    private static final int TIME_CHECK_NODES = 2048;
+
+    /**
+     * The depth singular extensions are used from.
+     */
+    private static final int SINGULAR_DEPTH = 8;
+
+    /**
+     * The margin per ply of depth below the hash score that every other move must fail to reach for the hash move to be singular.
+     */
+    private static final int SINGULAR_MARGIN = 2;
+
+    /**
+     * The number of plies a late quiet move is reduced by, indexed by depth and move number (both capped at 63).
+     * Moves searched later at higher depths are reduced more, as they are less likely to be the best move.
+     */
+    private static final int[][] reductions = new int[64][64];
+
+    static {
+        for (int depth = 1; depth < 64; depth++) {
+            for (int moveNumber = 1; moveNumber < 64; moveNumber++) {
+                reductions[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+            }
+        }
+    }
+
+    /**
+     * The engine the worker is searching for, which holds the shared transposition table and stop flag.
+     */
+    private final Engine engine;
+
+    /**
+     * If this is the main worker, which prints the result of each iteration.
+     */
+    private final boolean main;
+
+    /**
+     * The number of the worker, where the main worker is 0, used to give the helpers different starting depths.
+     */
+    private final int id;
+
+    /**
+     * The bitboard copy of the position the worker is searching.
+     */
+    private BitBoard bitBoard;
+
+    /**
+     * The frames for each ply of the search, holding the move and score buffers so they are reused between nodes.
+     */
+    private final SearchStack searchStack = new SearchStack();
+
+    /**
+     * The history scores of the quiet moves, kept between searches and halved between iterations.
+     */
+    private final History history = new History();
+
+    /**
+     * The transposition table, taken from the engine at the start of each search.
+     */
+    private TranspositionTable transpositionTable;
+
+    /**
+     * The number of positions searched since the start of the search.
+     */
+    private long nodes;
+
+    /**
+     * The best move from the last finished iteration.
+     */
+    private int bestMove;
+
+    /**
+     * The score of the best move from the last finished iteration.
+     */
+    private int bestEval;
+
+    /**
+     * The best move found so far in the current iteration.
+     */
+    private int bestMoveInCurrentSearch;
+
+    /**
+     * The score of bestMoveInCurrentSearch.
+     */
+    private int bestEvalInCurrentSearch;
+
+    /**
+     * The number of nodes left until the main worker checks the time again.
+     */
+    private int nodesUntilTimeCheck;
+
+    /**
+     * The depth of the last finished iteration.
+     */
+    private int completedDepth;
+
+    /**
+     * The number of best root moves searched each iteration, each with its own principal variation, for multi-PV analysis.
+     */
+    private int multiPv = 1;
+
+    /**
+     * The index of the line being searched in the current iteration, which is also the index of the first root move searched,
+     * as the root moves before it are the better lines already found.
+     */
+    private int pvIndex;
+
+    /**
+     * The legal moves at the root, with their scores, node counts and principal variations kept between iterations.
+     */
+    private final RootMoves rootMoves = new RootMoves();
+
+    /**
+     * The principal variation of the first root move searched, from the last search of the root, whose moves are searched first.
+     */
+    private final int[] followedPv = new int[SearchStack.MAX_PLY];
+
+    /**
+     * The number of moves in followedPv.
+     */
+    private int followedPvLength;
+
+    /**
+     * The principal variation of the best move, starting with the best move.
+     */
+    private final int[] principalVariation = new int[SearchStack.MAX_PLY];
+
+    /**
+     * The number of moves in principalVariation.
+     */
+    private int principalVariationLength;
+
+    /**
+     * The depth of the current iteration, which is also the most plies any path can be extended by.
+     */
+    private int rootDepth;
+
+    /**
+     * @param engine The engine the worker is searching for.
+     * @param id The number of the worker, where 0 is the main worker.
+     */
+    SearchWorker(Engine engine, int id) {
+        this.engine = engine;
+        this.id = id;
+        main = id == 0;
+    }
+
+    /**
+     * Sets the position to search, which must be a copy only used by this worker.
+     * @param bitBoard The bitboard of the position.
+     */
+    void setBitBoard(BitBoard bitBoard) {
+        this.bitBoard = bitBoard;
+    }
+
+    /**
+     * Searches one depth deeper each iteration until the engine's search is stopped or a mate is found.
+     * The main worker also stops once the time manager's soft limit has passed after an iteration,
+     * and stops the engine's search when the hard limit passes in the middle of one.
+     * If an iteration is stopped after a move was fully searched and raised the score at the root, that move is used,
+     * as it beat the best move of the last iteration, which is searched first.
+     * Helpers with an odd id start one depth deeper than the main worker.
+     * From ASPIRATION_DEPTH, each iteration first searches a narrow window around the last iteration's score,
+     * widening the side that failed and searching again until the score is inside the window.
+     * The root moves are searched in the order of the root move list, which is sorted after every search of the root,
+     * so the last iteration's best moves are searched first, followed by the moves that took the most positions to refute.
+     * For multi-PV analysis, the main worker searches the root once for each line, leaving out the root moves of the lines already found,
+     * and reports the lines to the engine when they have all been searched.
+     * The lines share the transposition table, so the later lines are mostly searched from the results of the first.
+     */
+    void iterativeDeepening() {
+        transpositionTable = engine.getTranspositionTable();
+        nodes = 0;
+        bestMove = PackedMove.NONE;
+        bestEval = 0;
+        completedDepth = 0;
+        principalVariationLength = 0;
+        nodesUntilTimeCheck = TIME_CHECK_NODES;
+        searchStack.clearKillers();
+        TimeManager timeManager = engine.getTimeManager();
+        rootMoves.init(bitBoard, engine.getSearchMoves());
+        // only the main worker's lines are reported, so the helpers only search for the best move
+        multiPv = main ? Math.max(1, Math.min(engine.getMultiPv(), rootMoves.size())) : 1;
+
+        int depth = 1 + (id & 1);
+        while (!engine.stopSearch) {
+            long nodesBefore = nodes;
+            rootMoves.startIteration();
+            for (pvIndex = 0; pvIndex < multiPv; pvIndex++) {
+                int lineScore = rootMoves.previousScore(pvIndex);
+                int delta = ASPIRATION_WINDOW;
+                int alpha = -INFINITY;
+                int beta = INFINITY;
+                if (depth >= ASPIRATION_DEPTH && Math.abs(lineScore) < Engine.mateScore - SearchStack.MAX_PLY) {
+                    alpha = Math.max(lineScore - delta, -INFINITY);
+                    beta = Math.min(lineScore + delta, INFINITY);
+                }
+
+                int eval;
+                while (true) {
+                    bestMoveInCurrentSearch = PackedMove.NONE;
+                    bestEvalInCurrentSearch = -INFINITY;
+                    rootDepth = depth;
+                    if (pvIndex < rootMoves.size()) {
+                        followedPvLength = rootMoves.pvLength(pvIndex);
+                        System.arraycopy(rootMoves.pv(pvIndex), 0, followedPv, 0, followedPvLength);
+                        rootMoves.clearScores(pvIndex);
+                    }
+                    searchStack.get(0).followPv = true;
+                    eval = search(depth, 0, alpha, beta);
+                    if (engine.stopSearch) break;
+                    rootMoves.sort(pvIndex, rootMoves.size());
+
+                    if (eval <= alpha) {
+                        // fail low, so the window is moved down, also bringing beta closer as the score is falling
+                        beta = (alpha + beta) / 2;
+                        alpha = Math.max(eval - delta, -INFINITY);
+                    } else if (eval >= beta) {
+                        beta = Math.min(eval + delta, INFINITY);
+                    } else {
+                        break;
+                    }
+                    delta *= 2;
+                }
+
+                if (engine.stopSearch) {
+                    // a move that beat the last iteration's best move is still used, but the other lines aren't complete
+                    if (pvIndex == 0 && bestMoveInCurrentSearch != PackedMove.NONE) {
+                        bestMove = bestMoveInCurrentSearch;
+                        bestEval = bestEvalInCurrentSearch;
+                        copyPrincipalVariation(rootMoves.indexOf(bestMove));
+                    }
+                    return;
+                }
+
+                if (pvIndex == 0) {
+                    bestMove = bestMoveInCurrentSearch;
+                    bestEval = eval;
+                    completedDepth = depth;
+                    if (rootMoves.size() > 0) copyPrincipalVariation(0);
+                }
+            }
+
+            rootMoves.sort(0, multiPv);
+            if (rootMoves.size() > 0) {
+                bestMove = rootMoves.move(0);
+                bestEval = rootMoves.score(0);
+                copyPrincipalVariation(0);
+            }
+            if (main) {
+                if ("true".equals(System.getenv("LOGS"))) {
+                    for (int i = 0; i < multiPv; i++) {
+                        System.out.println(depth + ": " + (rootMoves.size() > 0 ? rootMoves.score(i) : bestEval) + ", " + pvToString(i) + ", " + (nodes - nodesBefore));
+                    }
+                }
+                engine.reportIteration(getAnalysisLines(depth));
+            }
+
+            if (Math.abs(bestEval) + depth >= Engine.mateScore) return;
+            if (main) {
+                long totalNodes = rootMoves.totalNodeCount();
+                double bestMoveNodeFraction = totalNodes == 0 ? 1 : (double) rootMoves.nodeCount(0) / totalNodes;
+                timeManager.iterationFinished(depth, bestMove, bestEval, bestMoveNodeFraction);
+                if (timeManager.softLimitReached()) return;
+            }
+
+            history.age();
+            depth++;
+        }
+    }
+
+    /**
+     * Copies the principal variation of a root move into principalVariation.
+     * @param index The index of the root move.
+     */
+    private void copyPrincipalVariation(int index) {
+        System.arraycopy(rootMoves.pv(index), 0, principalVariation, 0, rootMoves.pvLength(index));
+        principalVariationLength = rootMoves.pvLength(index);
+    }
+
+    /**
+     * @param depth The depth of the iteration.
+     * @return The lines of the iteration, for the engine's analysis listener, which is empty if there are no legal moves.
+     */
+    private List<AnalysisLine> getAnalysisLines(int depth) {
+        long time = engine.getTimeManager().elapsed();
+        int lineCount = Math.min(multiPv, rootMoves.size());
+        List<AnalysisLine> analysisLines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            List<String> pv = new ArrayList<>(rootMoves.pvLength(i));
+            for (int j = 0; j < rootMoves.pvLength(i); j++) {
+                pv.add(PackedMove.toUci(rootMoves.pv(i)[j]));
+            }
+            analysisLines.add(new AnalysisLine(i + 1, depth, rootMoves.score(i), nodes, time, List.copyOf(pv)));
+        }
+        return analysisLines;
+    }
+
+    /**
+     * Stops the engine's search if the main worker has searched TIME_CHECK_NODES nodes since it last checked the time
+     * and the time manager's hard limit has passed. The search isn't stopped before the first iteration has finished, so there is always a move.
+     */
+    private void checkTime() {
+        if (main && --nodesUntilTimeCheck <= 0) {
+            nodesUntilTimeCheck = TIME_CHECK_NODES;
+            if (completedDepth > 0 && engine.getTimeManager().hardLimitReached()) engine.stopSearch = true;
+        }
+    }
+
+    /**
+     * @return The number of positions searched since the start of the search.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return The best move from the last finished iteration, or PackedMove.NONE if no iteration finished.
+     */
+    int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return The score of the best move from the last finished iteration.
+     */
+    int getBestEval() {
+        return bestEval;
+    }
+
+    /**
+     * @return The depth of the last finished iteration.
+     */
+    int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * @return A copy of the principal variation of the best move, which is empty if no iteration finished.
+     */
+    int[] getPrincipalVariation() {
+        return Arrays.copyOf(principalVariation, principalVariationLength);
+    }
+
+    /**
+     * @param index The index of the root move.
+     * @return The principal variation of the root move as UCI moves separated by spaces, or an empty string if there are no root moves.
+     */
+    private String pvToString(int index) {
+        StringBuilder sb = new StringBuilder();
+        if (index >= rootMoves.size()) return "";
+        for (int i = 0; i < rootMoves.pvLength(index); i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(PackedMove.toUci(rootMoves.pv(index)[i]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A debug function to count the number of moves upto the given depth.
+     * @param depth The depth the counting stops at
+     * @return The number of positions at the depth given.
+     */
+    int countMoves(int depth) {
+        return countMoves(depth, 0);
+    }
+
+    /**
+     * Performs a negamax alpha-beta search to find the best move by searching to the given depth, with scores from the side of the colour to move.
+     * The first move at each node is searched with the full window, and the rest with a null window around alpha (principal variation search),
+     * only searching them again with the full window if they beat alpha.
+     * Positions already searched deep enough are taken from the transposition table,
+     * and the best move stored for the position is searched first, or the next move of the last iteration's principal variation
+     * if the path to the position follows it. The principal variation found is kept in the search stack frame for the ply.
+     * Moves that give check, and a hash move that is much better than every other move (a singular move), are searched a ply deeper,
+     * as long as the path to the position hasn't already been extended by the depth of the iteration.
+     * It updates bestMoveInCurrentSearch when a new best move at a ply of 0 is found,
+     * and the score, node count and principal variation of each root move searched.
+     * @param depth The number of plies left to search.
+     * @param ply The current ply the search is at.
+     * @param alpha The score the colour to move can already guarantee.
+     * @param beta The score the opponent can already guarantee, so any score at least this high is a cutoff.
+     * @return The score of the position for the colour to move.
+     */
+    private int search(int depth, int ply, int alpha, int beta){
+        SearchStack.Frame frame = searchStack.get(ply);
+        frame.pvLength = 0;
+        checkTime();
+        if (engine.stopSearch){
+            return 0;
+        }
+
+        if (depth == 0 || ply >= SearchStack.MAX_PLY - 1) {
+            return quiescenceSearch(ply, 0, alpha, beta);
+        }
+
+        if (ply > 0){
+            // mate distance pruning: even mating on the next move, or being mated now, can't beat a shorter mate already found
+            alpha = Math.max(alpha, ply - Engine.mateScore);
+            beta = Math.min(beta, Engine.mateScore - ply - 1);
+            if (alpha >= beta) return alpha;
+        }
+
+        int excludedMove = frame.excludedMove;
+        if (ply == 0) frame.extensions = 0;
+
+        long key = bitBoard.getZobristKey();
+        long entry = transpositionTable.probe(key);
+        int hashMove = TranspositionTable.move(entry);
+        // the stored result includes the excluded move, so it can't be used while checking if that move is singular
+        if (entry != 0 && ply > 0 && excludedMove == PackedMove.NONE && TranspositionTable.depth(entry) >= depth){
+            int score = TranspositionTable.fromStoredScore(TranspositionTable.score(entry), ply, Engine.mateScore);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha)){
+                return score;
+            }
+        }
+
+        boolean pvNode = beta - alpha > 1;
+        boolean inCheck = bitBoard.isInCheck();
+        // pruning by the static evaluation isn't safe in check, at PV nodes, or when mate scores are involved
+        boolean canPrune = !pvNode && !inCheck && ply > 0 && excludedMove == PackedMove.NONE && alpha > -MATE_BOUND && beta < MATE_BOUND;
+        int staticEval = canPrune ? Engine.evaluate(bitBoard) : -INFINITY;
+
+        if (canPrune && depth <= FRONTIER_DEPTH){
+            // reverse futility pruning: the position is so far above beta that the opponent won't allow it
+            if (staticEval - REVERSE_FUTILITY_MARGIN * depth >= beta){
+                return staticEval;
+            }
+            // razoring: the position is so far below alpha that only captures could save it, so they are checked with the quiescence search
+            if (staticEval + RAZOR_MARGIN * depth <= alpha){
+                int score = quiescenceSearch(ply, 0, alpha, alpha + 1);
+                if (score <= alpha) return score;
+            }
+        }
+
+        // null move pruning: if passing the move still fails high with a reduced search, a real move almost certainly would,
+        // but not straight after another null move, or with only pawns left where passing could be better than any move (zugzwang)
+        if (canPrune && depth >= NULL_MOVE_DEPTH
+                && bitBoard.getPreviousMove() != PackedMove.NONE && hasNonPawnMaterial() && staticEval >= beta){
+            int reduction = 3 + depth / 4;
+            SearchStack.Frame child = searchStack.get(ply + 1);
+            child.followPv = false;
+            child.extensions = frame.extensions;
+            bitBoard.makeNullMove();
+            nodes++;
+            int score = -search(Math.max(depth - 1 - reduction, 0), ply + 1, -beta, -beta + 1);
+            bitBoard.undoNullMove();
+            if (engine.stopSearch) return 0;
+            // mate scores from a null move aren't proven, as passing isn't a legal move
+            if (score >= beta) return score >= MATE_BOUND ? beta : score;
+        }
+
+        // singular extensions: if every other move fails well below the hash score with a reduced search, the hash move is the only good move
+        // and is extended, but if even the other moves beat beta, more than one move fails high and the node is cut (multi-cut)
+        boolean singular = false;
+        if (ply > 0 && depth >= SINGULAR_DEPTH && excludedMove == PackedMove.NONE && hashMove != PackedMove.NONE
+                && TranspositionTable.bound(entry) != TranspositionTable.UPPER && TranspositionTable.depth(entry) >= depth - 3){
+            int hashScore = TranspositionTable.fromStoredScore(TranspositionTable.score(entry), ply, Engine.mateScore);
+            if (Math.abs(hashScore) < MATE_BOUND){
+                int singularBeta = hashScore - SINGULAR_MARGIN * depth;
+                frame.excludedMove = hashMove;
+                int score = search((depth - 1) / 2, ply, singularBeta - 1, singularBeta);
+                frame.excludedMove = PackedMove.NONE;
+                frame.pvLength = 0;
+                if (engine.stopSearch) return 0;
+                if (score < singularBeta){
+                    singular = true;
+                } else if (singularBeta >= beta){
+                    return singularBeta;
+                }
+            }
+        }
+
+        MovePicker movePicker = frame.movePicker;
+        // the last iteration's principal variation is searched first while the path follows it, instead of the hash move
+        int pvMove = frame.followPv && ply < followedPvLength ? followedPv[ply] : PackedMove.NONE;
+        // the root moves are searched in the order of the root move list instead, starting after the lines already found
+        int rootIndex = pvIndex;
+        if (ply > 0) movePicker.init(bitBoard, pvMove != PackedMove.NONE ? pvMove : hashMove, frame.killer1, frame.killer2, history);
+        frame.quietCount = 0;
+        int movesSearched = 0;
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMoveHere = PackedMove.NONE;
+        // futility pruning: quiet moves that don't give check can't raise the score enough to beat alpha
+        boolean futilityPruning = canPrune && depth <= FRONTIER_DEPTH && staticEval + FUTILITY_MARGIN * depth <= alpha;
+
+        int move;
+        while ((move = ply > 0 ? movePicker.next() : rootIndex < rootMoves.size() ? rootMoves.move(rootIndex++) : PackedMove.NONE) != PackedMove.NONE){
+            if (move == excludedMove) continue;
+            // captures that lose too much material are pruned near the leaves
+            if (canPrune && depth <= FRONTIER_DEPTH && movesSearched > 0 && PackedMove.isCapture(move)
+                    && bitBoard.staticExchangeEvaluation(move) < -SEE_PRUNING_MARGIN * depth){
+                continue;
+            }
+            long nodesBeforeMove = nodes;
+            bitBoard.makeMove(move);
+            boolean givesCheck = bitBoard.isInCheck();
+            if (futilityPruning && movesSearched > 0 && isQuiet(move) && !givesCheck){
+                bitBoard.undoMove();
+                continue;
+            }
+            nodes++;
+            movesSearched++;
+            // check extensions keep forcing lines from stopping at the horizon, limited so a path is at most twice the depth of the iteration
+            int extension = (givesCheck || (singular && move == hashMove)) && frame.extensions < rootDepth ? 1 : 0;
+            SearchStack.Frame child = searchStack.get(ply + 1);
+            child.extensions = frame.extensions + extension;
+            child.followPv = move == pvMove;
+            int newDepth = depth - 1 + extension;
+            int score;
+            if (movesSearched == 1){
+                score = -search(newDepth, ply + 1, -beta, -alpha);
+            } else {
+                // late move reductions: late quiet moves are searched to a lower depth first, and searched again at full depth if they beat alpha
+                int reduction = 0;
+                if (depth >= REDUCTION_DEPTH && movesSearched > (pvNode ? 3 : 1) && isQuiet(move) && !inCheck && !givesCheck){
+                    reduction = reductions[Math.min(depth, 63)][Math.min(movesSearched, 63)];
+                    if (pvNode) reduction--;
+                    if (move == frame.killer1 || move == frame.killer2) reduction--;
+                    reduction = Math.max(0, Math.min(reduction, newDepth - 1));
+                }
+                score = -search(newDepth - reduction, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && reduction > 0){
+                    score = -search(newDepth, ply + 1, -alpha - 1, -alpha);
+                }
+                if (score > alpha && score < beta){
+                    score = -search(newDepth, ply + 1, -beta, -alpha);
+                }
+            }
+            bitBoard.undoMove();
+            // the score of a move whose search was stopped isn't correct, so it can't become the best move
+            if (engine.stopSearch) return 0;
+
+            if (ply == 0){
+                rootMoves.addNodes(rootIndex - 1, nodes - nodesBeforeMove);
+                if (movesSearched == 1 || score > alpha) rootMoves.update(rootIndex - 1, score, child.pv, child.pvLength);
+                else rootMoves.failLow(rootIndex - 1);
+            }
+
+            if (score > bestScore){
+                bestScore = score;
+                if (score > alpha){
+                    alpha = score;
+                    bestMoveHere = move;
+                    frame.pv[0] = move;
+                    System.arraycopy(child.pv, 0, frame.pv, 1, child.pvLength);
+                    frame.pvLength = child.pvLength + 1;
+                    if (ply == 0){
+                        bestMoveInCurrentSearch = move;
+                        bestEvalInCurrentSearch = score;
+                    }
+                    if (alpha >= beta){
+                        if (isQuiet(move)){
+                            if (move != frame.killer1){
+                                frame.killer2 = frame.killer1;
+                                frame.killer1 = move;
+                            }
+                            history.update(bitBoard, move, frame.quietsSearched, frame.quietCount, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (isQuiet(move)){
+                frame.quietsSearched[frame.quietCount++] = move;
+                // late move pruning: once enough quiet moves have failed at low depth, the rest are unlikely to do better
+                if (canPrune && depth <= FRONTIER_DEPTH && frame.quietCount >= 3 + depth * depth){
+                    movePicker.skipQuiets();
+                }
+            }
+        }
+
+        if (movesSearched == 0){
+            // with the only move excluded, the position isn't mate or stalemate, and no other move beats alpha
+            if (excludedMove != PackedMove.NONE) return alpha;
+            return inCheck ? ply - Engine.mateScore : 0;
+        }
+        // the root's score without the better lines' moves, or limited to the search moves, isn't the score of the position
+        if (!engine.stopSearch && excludedMove == PackedMove.NONE && (ply > 0 || (pvIndex == 0 && !rootMoves.isRestricted()))){
+            int bound = bestScore >= beta ? TranspositionTable.LOWER : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            transpositionTable.store(key, bestMoveHere, TranspositionTable.toStoredScore(bestScore, ply, Engine.mateScore), depth, bound);
+        }
+        return bestScore;
+    }
+
+    /**
+     * @return If the colour to move has a piece other than pawns and the king, so null move pruning is unlikely to be wrong because of zugzwang.
+     */
+    private boolean hasNonPawnMaterial(){
+        int base = bitBoard.getSideToMove() * 6;
+        return (bitBoard.getPieceBitBoard(base + BitBoard.KNIGHT) | bitBoard.getPieceBitBoard(base + BitBoard.BISHOP)
+                | bitBoard.getPieceBitBoard(base + BitBoard.ROOK) | bitBoard.getPieceBitBoard(base + BitBoard.QUEEN)) != 0;
+    }
+
+    /**
+     * @param move The packed move.
+     * @return If the move isn't a capture or a promotion, so it is ordered by the killer moves and history scores.
+     */
+    private static boolean isQuiet(int move){
+        return !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+    }
+
+    /**
+     * Searches only the captures and promotions until the position is quiet, so the evaluation isn't taken in the middle of an exchange.
+     * The colour to move can stand pat with the evaluation of the position, instead of making a capture,
+     * using the transposition table's score instead if it is a bound on the right side of the evaluation.
+     * Captures that lose material are skipped, as are captures that couldn't raise the score to alpha even without a recapture (delta pruning).
+     * In check, the colour to move can't stand pat, so every move is searched, and a position with none is mate.
+     * @param ply The current ply the search is at, used for the search stack frame.
+     * @param quiescencePly The number of plies since the quiescence search started.
+     * @param alpha The score the colour to move can already guarantee.
+     * @param beta The score the opponent can already guarantee.
+     * @return The score of the position for the colour to move.
+     */
+    private int quiescenceSearch(int ply, int quiescencePly, int alpha, int beta){
+        searchStack.get(ply).pvLength = 0;
+        checkTime();
+        if (engine.stopSearch){
+            return 0;
+        }
+
+        boolean inCheck = bitBoard.isInCheck();
+        if (ply >= SearchStack.MAX_PLY - 1 || quiescencePly >= QUIESCENCE_MAX_PLY){
+            return Engine.evaluate(bitBoard);
+        }
+
+        long key = bitBoard.getZobristKey();
+        long entry = transpositionTable.probe(key);
+        int hashScore = 0;
+        int hashBound = TranspositionTable.NONE;
+        if (entry != 0){
+            hashScore = TranspositionTable.fromStoredScore(TranspositionTable.score(entry), ply, Engine.mateScore);
+            hashBound = TranspositionTable.bound(entry);
+            if (hashBound == TranspositionTable.EXACT
+                    || (hashBound == TranspositionTable.LOWER && hashScore >= beta)
+                    || (hashBound == TranspositionTable.UPPER && hashScore <= alpha)){
+                return hashScore;
+            }
+        }
+
+        int originalAlpha = alpha;
+        int bestScore;
+        int standPat = -INFINITY;
+        MovePicker movePicker = searchStack.get(ply).movePicker;
+        if (inCheck){
+            bestScore = -INFINITY;
+            movePicker.init(bitBoard, TranspositionTable.move(entry), PackedMove.NONE, PackedMove.NONE, history);
+        } else {
+            standPat = Engine.evaluate(bitBoard);
+            // a bound from the transposition table is more accurate than the evaluation, if it is on the right side of it
+            if ((hashBound == TranspositionTable.LOWER && hashScore > standPat) || (hashBound == TranspositionTable.UPPER && hashScore < standPat)){
+                standPat = hashScore;
+            }
+            bestScore = standPat;
+            if (bestScore >= beta){
+                return bestScore; // The opponent won't allow this move
+            }
+            if (bestScore > alpha){
+                alpha = bestScore;
+            }
+            movePicker.initCaptures(bitBoard);
+        }
+
+        int movesSearched = 0;
+        int bestMoveHere = PackedMove.NONE;
+        int move;
+        while ((move = movePicker.next()) != PackedMove.NONE){
+            // delta pruning: even winning the captured piece for free wouldn't get the score up to alpha
+            if (!inCheck && !PackedMove.isPromotion(move) && standPat + capturedValue(move) + DELTA_MARGIN <= alpha){
+                continue;
+            }
+            bitBoard.makeMove(move);
+            nodes++;
+            movesSearched++;
+            int score = -quiescenceSearch(ply + 1, quiescencePly + 1, -beta, -alpha);
+            bitBoard.undoMove();
+            if (engine.stopSearch) return 0;
+
+            if (score > bestScore){
+                bestScore = score;
+                if (score > alpha){
+                    alpha = score;
+                    bestMoveHere = move;
+                    if (alpha >= beta){
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (inCheck && movesSearched == 0){
+            return ply - Engine.mateScore;
+        }
+        if (!engine.stopSearch){
+            int bound = bestScore >= beta ? TranspositionTable.LOWER : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            transpositionTable.store(key, bestMoveHere, TranspositionTable.toStoredScore(bestScore, ply, Engine.mateScore), 0, bound);
+        }
+        return bestScore;
+    }
+
+    /**
+     * @param move The packed capture.
+     * @return The value of the piece captured by the move.
+     */
+    private int capturedValue(int move){
+        if (PackedMove.flag(move) == PackedMove.EN_PASSANT) return Engine.pieceScores[BitBoard.PAWN];
+        return Engine.pieceScores[bitBoard.getPiece(PackedMove.to(move)) % 6];
+    }
+
+    /**
+     * Counts the number of positions upto the given depth on the bitboard, using the search stack for the move buffers.
+     * @param depth The depth the counting stops at
+     * @param ply The current ply, used for the search stack frame.
+     * @return The number of positions at the depth given.
+     */
+    private int countMoves(int depth, int ply){
+        if (depth == 0) return 1;
+
+        int[] moves = searchStack.get(ply).moves;
+        int moveCount = bitBoard.generateMoves(moves);
+        if (depth == 1) return moveCount; // every generated move is legal, so they don't need to be made
+        int count = 0;
+        for (int i = 0; i < moveCount; i++){
+            bitBoard.makeMove(moves[i]);
+            count += countMoves(depth - 1, ply + 1);
+            bitBoard.undoMove();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.chessengine.Engine;
+
+/**
+ * The TimeManager class decides how long the engine searches for, from the time left on its clock.
+ * The soft limit is the time after which no new iteration is started, and the hard limit is the time the search is stopped at, even in the middle of an iteration.
+ * The soft limit is made longer while the best move keeps changing between iterations, the score is falling,
+ * or the other root moves took a large share of the search to refute, as the search hasn't settled on a move yet,
+ * and shorter when almost all of the search was spent on the best move. It is never made longer than the hard limit.
+ * Only searches timed from the clock are scaled, as a search given a fixed move time should always use all of it.
+ * The limits can be restarted while a search is running, such as when a ponder search becomes the real search, so every method is synchronized.
+ */
+public class TimeManager {
+    /**
+     * The time in milliseconds kept back from the clock, for the time taken to send the move and for the search to notice it has to stop.
+     */
+    private static final long MOVE_OVERHEAD = 50;
+
+    /**
+     * The number of moves left in the game assumed when the time control doesn't give one.
+     */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    /**
+     * The hard limit is at most this many times the time planned for the move.
+     */
+    private static final int HARD_LIMIT_SCALE = 5;
+
+    /**
+     * The fraction of the time left on the clock the hard limit can be at most.
+     */
+    private static final double MAX_TIME_FRACTION = 0.8;
+
+    /**
+     * The amount the soft limit is scaled up by for each recent change of the best move.
+     */
+    private static final double INSTABILITY_SCALE = 0.5;
+
+    /**
+     * The fall in score, in centipawns, between iterations that makes the soft limit longer.
+     */
+    private static final int SCORE_DROP = 30;
+
+    /**
+     * The amount the soft limit is scaled up by when the score falls by SCORE_DROP.
+     */
+    private static final double SCORE_DROP_SCALE = 1.5;
+
+    /**
+     * The soft limit is scaled by this minus the fraction of the iteration's positions searched after the best move.
+     */
+    private static final double NODE_FRACTION_SCALE = 1.75;
+
+    /**
+     * The least and most the soft limit can be scaled by.
+     */
+    private static final double MIN_SCALE = 0.5, MAX_SCALE = 3;
+
+    /**
+     * The time the search started, from System.nanoTime.
+     */
+    private long startTime;
+
+    /**
+     * The time in milliseconds after which no new iteration is started, before it is scaled.
+     */
+    private long softLimit;
+
+    /**
+     * The time in milliseconds after which the search is stopped.
+     */
+    private long hardLimit;
+
+    /**
+     * The amount the soft limit is scaled by, from the stability of the best move and score.
+     */
+    private double scale;
+
+    /**
+     * If the soft limit is scaled, which is only for searches timed from the clock.
+     */
+    private boolean scaled;
+
+    /**
+     * The number of times the best move has changed between iterations, halved after every iteration so older changes count less.
+     */
+    private double bestMoveChanges;
+
+    /**
+     * The best move and score of the last finished iteration.
+     */
+    private int lastBestMove, lastScore;
+
+    /**
+     * Starts timing a search that only stops when it is told to, or finds a mate.
+     */
+    public void startInfinite() {
+        start(Long.MAX_VALUE, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * Starts timing a search that uses a fixed amount of time.
+     * @param moveTime The time in milliseconds to search for, which must be positive.
+     */
+    public void startMoveTime(long moveTime) {
+        if (moveTime <= 0) throw new IllegalArgumentException("Invalid move time: " + moveTime);
+        long time = Math.max(moveTime - MOVE_OVERHEAD, 1);
+        start(time, time, false);
+    }
+
+    /**
+     * Starts timing a search from the state of the engine's clock.
+     * The time planned for the move is the time left shared between the moves left, plus most of the increment.
+     * @param remaining The time left on the clock in milliseconds, which must be positive.
+     * @param increment The time added to the clock after each move in milliseconds.
+     * @param movesToGo The number of moves until more time is added, or 0 if the time left is for the rest of the game.
+     */
+    public void start(long remaining, long increment, int movesToGo) {
+        if (remaining <= 0) throw new IllegalArgumentException("Invalid remaining time: " + remaining);
+        if (increment < 0) throw new IllegalArgumentException("Invalid increment: " + increment);
+        if (movesToGo < 0) throw new IllegalArgumentException("Invalid moves to go: " + movesToGo);
+        long available = Math.max(remaining - MOVE_OVERHEAD, 1);
+        int moves = movesToGo == 0 ? DEFAULT_MOVES_TO_GO : Math.min(movesToGo, DEFAULT_MOVES_TO_GO);
+        long planned = available / moves + increment * 3 / 4;
+        long hard = Math.max(Math.min(planned * HARD_LIMIT_SCALE, (long) (available * MAX_TIME_FRACTION)), 1);
+        start(Math.min(planned, hard), hard, true);
+    }
+
+    /**
+     * Starts the timer with the given limits.
+     * @param soft The soft limit in milliseconds.
+     * @param hard The hard limit in milliseconds.
+     * @param scaled If the soft limit is scaled by the result of each iteration.
+     */
+    private synchronized void start(long soft, long hard, boolean scaled) {
+        startTime = System.nanoTime();
+        softLimit = soft;
+        hardLimit = hard;
+        this.scaled = scaled;
+        scale = 1;
+        bestMoveChanges = 0;
+        lastBestMove = 0;
+        lastScore = 0;
+    }
+
+    /**
+     * Updates the scale of the soft limit with the result of a finished iteration, if the search is timed from the clock.
+     * @param depth The depth of the iteration.
+     * @param bestMove The best move found.
+     * @param score The score of the best move.
+     * @param bestMoveNodeFraction The fraction of the positions searched at the root in the iteration that were searched after the best move.
+     */
+    synchronized void iterationFinished(int depth, int bestMove, int score, double bestMoveNodeFraction) {
+        if (!scaled) return;
+        if (depth > 1 && bestMove != lastBestMove) bestMoveChanges++;
+        scale = 1 + bestMoveChanges * INSTABILITY_SCALE;
+        if (depth > 1 && lastScore - score >= SCORE_DROP) scale *= SCORE_DROP_SCALE;
+        scale *= NODE_FRACTION_SCALE - bestMoveNodeFraction;
+        scale = Math.max(MIN_SCALE, Math.min(scale, MAX_SCALE));
+        bestMoveChanges /= 2;
+        lastBestMove = bestMove;
+        lastScore = score;
+    }
+
+    /**
+     * @return If the soft limit has passed, so a new iteration shouldn't be started.
+     */
+    synchronized boolean softLimitReached() {
+        if (softLimit == Long.MAX_VALUE) return false;
+        return elapsed() >= Math.min((long) (softLimit * scale), hardLimit);
+    }
+
+    /**
+     * @return If the hard limit has passed, so the search should be stopped straight away.
+     */
+    synchronized boolean hardLimitReached() {
+        return hardLimit != Long.MAX_VALUE && elapsed() >= hardLimit;
+    }
+
+    /**
+     * @return The time in milliseconds since the search started.
+     */
+    public synchronized long elapsed() {
+        return (System.nanoTime() - startTime) / 1_000_000;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.Moves.PackedMove;
+
+import java.util.Arrays;
+
+/**
+ * The TranspositionTable class stores the results of searched positions, keyed by their zobrist key,
+ * so positions reached again through a different move order, or in the next iteration, don't need to be searched again.
+ * Each entry is 2 longs, one holding the zobrist key XORed with the data and one holding the data.
+ * The data holds the best move, score, depth, bound type and age of the entry packed together.
+ * A thread reading an entry while another thread is writing it would get a key that doesn't match the data,
+ * so the entry is treated as missing, and the table can be shared between threads without any locking.
+ * The entries are grouped into buckets of 4, and a new entry replaces the entry in its bucket that is oldest and searched to the lowest depth.
+ */
+public class TranspositionTable {
+    /**
+     * The bound types of a stored score.
+     * EXACT is the true score, LOWER is a lower bound from a beta cutoff, and UPPER is an upper bound from no move raising alpha.
+     */
+    public static final int NONE = 0, EXACT = 1, LOWER = 2, UPPER = 3;
+
+    /**
+     * The size of the table in megabytes used when one isn't given.
+     */
+    public static final int DEFAULT_SIZE_MB = 64;
+
+    /**
+     * The number of entries in each bucket.
+     */
+    private static final int BUCKET_SIZE = 4;
+
+    /**
+     * The number of bytes used by each entry.
+     */
+    private static final int ENTRY_BYTES = 16;
+
+    /**
+     * The scores stored are limited to this size, so they fit into the 20 bits for them.
+     */
+    private static final int MAX_SCORE = (1 << 19) - 1;
+
+    /**
+     * The bit shifts and masks of each part of the data.
+     */
+    private static final int SCORE_SHIFT = 16, DEPTH_SHIFT = 36, BOUND_SHIFT = 44, AGE_SHIFT = 46;
+    private static final long MOVE_MASK = 0xFFFF, SCORE_MASK = 0xF_FFFF, DEPTH_MASK = 0xFF, BOUND_MASK = 0x3, AGE_MASK = 0x3F;
+
+    /**
+     * The zobrist key of each entry XORed with its data.
+     */
+    private final long[] keys;
+
+    /**
+     * The data of each entry.
+     */
+    private final long[] data;
+
+    /**
+     * The mask to get the index of a bucket from a zobrist key.
+     */
+    private final int bucketMask;
+
+    /**
+     * The age of new entries, which is increased at the start of every search so older entries are replaced first.
+     */
+    private int age = 0;
+
+    /**
+     * Constructor to create a new transposition table.
+     * The number of buckets is rounded down to a power of 2, so the bucket can be found from the key with a mask,
+     * and is at most the largest power of 2 whose entries still fit in an array.
+     * @param sizeMB The size of the table in megabytes, which must be at least 1.
+     */
+    public TranspositionTable(int sizeMB) {
+        if (sizeMB < 1) throw new IllegalArgumentException("Invalid transposition table size: " + sizeMB);
+        long buckets = Long.highestOneBit((long) sizeMB * 1024 * 1024 / (ENTRY_BYTES * BUCKET_SIZE));
+        buckets = Math.min(buckets, Integer.highestOneBit(Integer.MAX_VALUE / BUCKET_SIZE));
+        bucketMask = (int) buckets - 1;
+        keys = new long[(int) buckets * BUCKET_SIZE];
+        data = new long[(int) buckets * BUCKET_SIZE];
+    }
+
+    /**
+     * Increases the age of new entries, to be called at the start of every search.
+     */
+    public void newSearch() {
+        age = (age + 1) & (int) AGE_MASK;
+    }
+
+    /**
+     * Removes every entry from the table.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+        age = 0;
+    }
+
+    /**
+     * Finds the entry for a position.
+     * @param key The zobrist key of the position.
+     * @return The data of the entry, to be read with the static methods, or 0 if the position isn't in the table.
+     */
+    public long probe(long key) {
+        int start = bucketIndex(key);
+        for (int i = start; i < start + BUCKET_SIZE; i++) {
+            long entry = data[i];
+            if ((keys[i] ^ entry) == key && entry != 0) return entry;
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of searching a position.
+     * An entry for the same position is overwritten, keeping its move if the new result doesn't have one,
+     * unless it is from the current search and was searched much deeper, even if the new score is exact,
+     * so a quiescence search result doesn't replace the result of a deep search.
+     * Otherwise, the entry in the bucket with the lowest depth, counting older entries as lower, is replaced.
+     * @param key The zobrist key of the position.
+     * @param move The best move found, or PackedMove.NONE if there isn't one.
+     * @param score The score of the position, already adjusted with toStoredScore.
+     * @param depth The depth the position was searched to.
+     * @param bound The bound type of the score.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        if (score > MAX_SCORE || score < -MAX_SCORE) return;
+        int start = bucketIndex(key);
+        int replace = start;
+        int lowestValue = Integer.MAX_VALUE;
+        for (int i = start; i < start + BUCKET_SIZE; i++) {
+            long entry = data[i];
+            if ((keys[i] ^ entry) == key && entry != 0) {
+                if (age(entry) == age && depth < depth(entry) - 2) return;
+                if (move == PackedMove.NONE) move = move(entry);
+                replace = i;
+                break;
+            }
+            // empty entries have a depth of 0 and the oldest age
+            int relativeAge = (age - age(entry)) & (int) AGE_MASK;
+            int value = entry == 0 ? Integer.MIN_VALUE : depth(entry) - 4 * relativeAge;
+            if (value < lowestValue) {
+                lowestValue = value;
+                replace = i;
+            }
+        }
+
+        long entry = (move & MOVE_MASK)
+                | ((score & SCORE_MASK) << SCORE_SHIFT)
+                | ((Math.min(depth, (int) DEPTH_MASK) & DEPTH_MASK) << DEPTH_SHIFT)
+                | ((bound & BOUND_MASK) << BOUND_SHIFT)
+                | (((long) age & AGE_MASK) << AGE_SHIFT);
+        data[replace] = entry;
+        keys[replace] = key ^ entry;
+    }
+
+    /**
+     * @param key The zobrist key of the position.
+     * @return The index of the first entry in the bucket for the key.
+     */
+    private int bucketIndex(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE;
+    }
+
+    /**
+     * @param entry The data of an entry.
+     * @return The best move stored, or PackedMove.NONE.
+     */
+    public static int move(long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    /**
+     * @param entry The data of an entry.
+     * @return The score stored, which needs adjusting with fromStoredScore.
+     */
+    public static int score(long entry) {
+        // shift the 20 bit score to the top of the int and back, to keep its sign
+        return (int) ((entry >>> SCORE_SHIFT) & SCORE_MASK) << 12 >> 12;
+    }
+
+    /**
+     * @param entry The data of an entry.
+     * @return The depth the position was searched to.
+     */
+    public static int depth(long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & DEPTH_MASK);
+    }
+
+    /**
+     * @param entry The data of an entry.
+     * @return The bound type of the score stored.
+     */
+    public static int bound(long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & BOUND_MASK);
+    }
+
+    /**
+     * @param entry The data of an entry.
+     * @return The age of the search the entry was stored in.
+     */
+    private static int age(long entry) {
+        return (int) ((entry >>> AGE_SHIFT) & AGE_MASK);
+    }
+
+    /**
+     * Changes mate scores from the distance to mate from the root, to the distance to mate from the position,
+     * so the score is still correct when the position is reached at a different ply.
+     * @param score The score of the position.
+     * @param ply The ply the position was searched at.
+     * @param mateScore The score of a mate at the root.
+     * @return The score to store.
+     */
+    public static int toStoredScore(int score, int ply, int mateScore) {
+        if (score >= mateScore - SearchStack.MAX_PLY) return score + ply;
+        if (score <= SearchStack.MAX_PLY - mateScore) return score - ply;
+        return score;
+    }
+
+    /**
+     * Changes a stored mate score back to the distance to mate from the root.
+     * @param score The score stored.
+     * @param ply The ply the position is at now.
+     * @param mateScore The score of a mate at the root.
+     * @return The score of the position.
+     */
+    public static int fromStoredScore(int score, int ply, int mateScore) {
+        if (score >= mateScore - SearchStack.MAX_PLY) return score - ply;
+        if (score <= SearchStack.MAX_PLY - mateScore) return score + ply;
+        return score;
+    }
+}
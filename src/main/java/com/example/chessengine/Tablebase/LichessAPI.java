@@ -69,8 +69,7 @@ public final class LichessAPI {
      * @throws RuntimeException Error if it can't find an appropriate move.
      */
     private static Move getMoveFromUci(String uci, Board board){
-        for (Move testMove: board.getPseudolegalMoves()){
-            if (!board.checkLegalMoves(testMove, true)) continue;
+        for (Move testMove: board.getLegalMoves()){
 
             Cell cell = testMove.cell();
             Piece p = testMove.p();
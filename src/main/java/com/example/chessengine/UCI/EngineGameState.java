@@ -80,6 +80,7 @@ public class EngineGameState extends GameState{
      * Requests the next move from the engine Thread.
      * If the move isn't null, then it performs the move, updates the GUI, and checks if the game is over.
      * If the move is null, then it calls GameEndMessage.
+     * If the game carries on, the engine ponders on the player's expected reply while they think.
      * It also colours squares in red to show the move performed
      */
     private void doNextEngineMove(){
@@ -91,6 +92,7 @@ public class EngineGameState extends GameState{
                 if ((legalMoves.isEmpty() || board.getFiftyMoveCounter() >= 100 || board.positionHistory.containsValue((short) 3)) && !gameEnd) {
                     gameEndMessage();
                 }
+                if (!gameEnd) engineThread.startPondering();
             }
             else if (!gameEnd){
                 gameEndMessage();
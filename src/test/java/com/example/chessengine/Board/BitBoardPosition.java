@@ -0,0 +1,264 @@
+package com.example.chessengine.Board;
+
+import com.example.chessengine.Board.Moves.Move;
+import com.example.chessengine.Board.Moves.PackedMove;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the bitboard position and its attack tables.
+ */
+class BitBoardPosition {
+
+    /**
+     * Tests the magic attack tables against attack sets worked out by hand.
+     */
+    @Test
+    @DisplayName("magic attack tables give the correct attacks.")
+    void slidingAttacks() {
+        long d4 = 1L << 27;
+        long blockers = (1L << 43) | (1L << 25) | (1L << 41) | (1L << 13);
+        assertAll(
+                () -> assertEquals(0x0101_0101_0101_01FEL, Attacks.rookAttacks(0, 0)),
+                () -> assertEquals(0x8040_2010_0804_0200L, Attacks.bishopAttacks(0, 0)),
+                () -> assertEquals(0x0000_0808_F608_0808L, Attacks.rookAttacks(27, blockers)),
+                () -> assertEquals(0x8040_2214_0014_2201L, Attacks.bishopAttacks(27, blockers)),
+                () -> assertEquals(Attacks.rookAttacks(27, d4) | Attacks.bishopAttacks(27, d4), Attacks.queenAttacks(27, d4)),
+                () -> assertEquals(0x0000_0000_0002_0400L, Attacks.knightAttacks[0]),
+                () -> assertEquals(0x0000_0000_0000_0A00L, Attacks.pawnAttacks[BitBoard.WHITE][2])
+        );
+    }
+
+    /**
+     * Tests the bitboard copied from a Board has the same zobrist key, check status and attacked squares, as moves are played on the Board.
+     */
+    @Test
+    @DisplayName("bitboard matches the board it is created from.")
+    void matchesBoard() {
+        Board board = Board.getStartPosition();
+        for (int i = 0; i < 40; i++) {
+            BitBoard bitBoard = new BitBoard(board);
+            assertEquals(board.getZobristKey(), bitBoard.getZobristKey());
+            assertEquals(board.isInCheck(), bitBoard.isInCheck());
+            assertEquals(board.getPieceCount(), bitBoard.getPieceCount());
+            for (int square = 0; square < 64; square++) {
+                long attackers = bitBoard.attackersTo(square, bitBoard.getOccupied());
+                assertEquals(Long.bitCount(attackers & bitBoard.getColourBitBoard(BitBoard.WHITE)), board.getAttackCount(square / 8, square % 8, Colour.WHITE));
+                assertEquals(Long.bitCount(attackers & bitBoard.getColourBitBoard(BitBoard.BLACK)), board.getAttackCount(square / 8, square % 8, Colour.BLACK));
+            }
+
+            Move next = null;
+            for (Move move : board.getPseudolegalMoves()) {
+                if (board.checkLegalMoves(move, true)) {
+                    next = move;
+                    if (i % 3 == 0) break;
+                }
+            }
+            if (next == null) break;
+            board.movePiece(next, false);
+        }
+    }
+
+    /**
+     * Tests loading a FEN string, including the en passant square only being kept when it can be captured.
+     */
+    @Test
+    @DisplayName("bitboard loads FEN strings.")
+    void loadsFEN() {
+        BitBoard start = BitBoard.fromFEN("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        BitBoard noCapture = BitBoard.fromFEN("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        BitBoard capture = BitBoard.fromFEN("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR_b_KQkq_e3_0_1");
+        assertAll(
+                () -> assertEquals(Board.getStartPosition().getZobristKey(), start.getZobristKey()),
+                () -> assertEquals(-1, noCapture.getEnPassantSquare()),
+                () -> assertEquals(20, capture.getEnPassantSquare()),
+                () -> assertEquals(BitBoard.pieceIndex(BitBoard.WHITE, BitBoard.KING), start.getPiece(4)),
+                () -> assertEquals(15, start.getCastlingRights()),
+                () -> assertFalse(start.isInCheck())
+        );
+    }
+
+    /**
+     * Tests the legal move generation and make/undo on positions with castling, en passant, promotions, pins and checks, by performing perft tests.
+     */
+    @Test
+    @DisplayName("count positions in tricky positions.")
+    void perft() {
+        assertAll(
+                () -> assertEquals(97_862, perft(BitBoard.fromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"), 3)),
+                () -> assertEquals(674_624, perft(BitBoard.fromFEN("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"), 5)),
+                () -> assertEquals(422_333, perft(BitBoard.fromFEN("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"), 4)),
+                () -> assertEquals(62_379, perft(BitBoard.fromFEN("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"), 3))
+        );
+    }
+
+    /**
+     * Tests packed moves made on a bitboard keep the same zobrist key as the equivalent Move objects made on a Board,
+     * and that undoing them restores the key.
+     */
+    @Test
+    @DisplayName("packed moves match board moves.")
+    void packedMovesMatchBoard() {
+        Board board = Board.getStartPosition();
+        BitBoard bitBoard = new BitBoard(board);
+        for (int i = 0; i < 60; i++) {
+            Move next = null;
+            for (Move move : board.getPseudolegalMoves()) {
+                if (board.checkLegalMoves(move, true)) {
+                    next = move;
+                    if (i % 4 == 1) break;
+                }
+            }
+            if (next == null) break;
+            int packedMove = PackedMove.fromMove(next);
+            assertEquals(packedMove, PackedMove.fromMove(PackedMove.toMove(packedMove, board)));
+
+            int[] moves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+            int moveCount = bitBoard.generateMoves(moves);
+            assertTrue(Arrays.stream(moves, 0, moveCount).anyMatch(move -> move == packedMove));
+
+            long key = bitBoard.getZobristKey();
+            bitBoard.makeMove(packedMove);
+            bitBoard.undoMove();
+            assertEquals(key, bitBoard.getZobristKey());
+
+            bitBoard.makeMove(packedMove);
+            board.movePiece(next, false);
+            assertEquals(board.getZobristKey(), bitBoard.getZobristKey());
+        }
+    }
+
+    /**
+     * Tests the captures and quiet moves generated separately are the same as all the moves generated together,
+     * and that checking a move is legal agrees with the move generation, including for moves from other positions.
+     */
+    @Test
+    @DisplayName("staged move generation matches full move generation.")
+    void stagedGeneration() {
+        String[] fens = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+        };
+        int[] otherMoves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+        int otherCount = 0;
+        for (String fen : fens) {
+            BitBoard bitBoard = BitBoard.fromFEN(fen);
+            int[] moves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+            int moveCount = bitBoard.generateMoves(moves);
+            int[] staged = new int[BitBoard.MAX_MOVES_IN_POSITION];
+            int captureCount = bitBoard.generateCaptures(staged, 0);
+            int stagedCount = bitBoard.generateQuiets(staged, captureCount);
+            for (int i = 0; i < captureCount; i++) {
+                assertTrue(PackedMove.isCapture(staged[i]) || PackedMove.isPromotion(staged[i]));
+            }
+            int[] expected = Arrays.copyOf(moves, moveCount);
+            int[] actual = Arrays.copyOf(staged, stagedCount);
+            Arrays.sort(expected);
+            Arrays.sort(actual);
+            assertArrayEquals(expected, actual);
+
+            for (int i = 0; i < moveCount; i++) {
+                assertTrue(bitBoard.isLegal(moves[i]));
+            }
+            long key = bitBoard.getZobristKey();
+            for (int i = 0; i < otherCount; i++) {
+                int move = otherMoves[i];
+                assertEquals(Arrays.stream(expected).anyMatch(m -> m == move), bitBoard.isLegal(move));
+            }
+            assertEquals(key, bitBoard.getZobristKey());
+            System.arraycopy(moves, 0, otherMoves, 0, moveCount);
+            otherCount = moveCount;
+        }
+    }
+
+    /**
+     * Tests a copied bitboard has the same position and moves, and that the moves made before copying can be undone on the copy.
+     */
+    @Test
+    @DisplayName("copied bitboards are the same position and keep the move history.")
+    void copy() {
+        BitBoard original = BitBoard.fromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        original.makeMove(PackedMove.encode(8, 16, PackedMove.QUIET));
+        BitBoard copy = new BitBoard(original);
+        long key = original.getZobristKey();
+        assertEquals(key, copy.getZobristKey());
+        int[] originalMoves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+        int[] copyMoves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+        assertArrayEquals(Arrays.copyOf(originalMoves, original.generateMoves(originalMoves)), Arrays.copyOf(copyMoves, copy.generateMoves(copyMoves)));
+
+        copy.makeMove(PackedMove.encode(25, 17, PackedMove.QUIET));
+        copy.undoMove();
+        copy.undoMove();
+        assertAll(
+                () -> assertEquals(key, original.getZobristKey()),
+                () -> assertEquals(BitBoard.fromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1").getZobristKey(), copy.getZobristKey())
+        );
+    }
+
+    /**
+     * Tests a null move passes the move to the other colour, removing the en passant square, and that undoing it restores the position.
+     */
+    @Test
+    @DisplayName("null moves pass the move and can be undone.")
+    void nullMove() {
+        BitBoard bitBoard = BitBoard.fromFEN("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        long key = bitBoard.getZobristKey();
+        bitBoard.makeNullMove();
+        assertAll(
+                () -> assertEquals(BitBoard.WHITE, bitBoard.getSideToMove()),
+                () -> assertEquals(-1, bitBoard.getEnPassantSquare()),
+                () -> assertEquals(PackedMove.NONE, bitBoard.getPreviousMove()),
+                () -> assertEquals(BitBoard.fromFEN("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR w KQkq - 1 2").getZobristKey(), bitBoard.getZobristKey())
+        );
+        bitBoard.undoNullMove();
+        assertAll(
+                () -> assertEquals(BitBoard.BLACK, bitBoard.getSideToMove()),
+                () -> assertEquals(20, bitBoard.getEnPassantSquare()),
+                () -> assertEquals(key, bitBoard.getZobristKey())
+        );
+    }
+
+    /**
+     * Tests static exchange evaluation on an undefended capture, a capture losing material to an exchange with x-ray attackers,
+     * a quiet move onto a safe square, and a quiet move onto a square attacked by a pawn.
+     */
+    @Test
+    @DisplayName("static exchange evaluation resolves exchanges.")
+    void staticExchangeEvaluation() {
+        BitBoard undefended = BitBoard.fromFEN("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1");
+        BitBoard xRays = BitBoard.fromFEN("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1");
+        BitBoard start = BitBoard.fromFEN("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        assertAll(
+                () -> assertEquals(100, undefended.staticExchangeEvaluation(PackedMove.encode(4, 36, PackedMove.CAPTURE))),
+                () -> assertEquals(-225, xRays.staticExchangeEvaluation(PackedMove.encode(19, 36, PackedMove.CAPTURE))),
+                () -> assertEquals(0, start.staticExchangeEvaluation(PackedMove.encode(6, 21, PackedMove.QUIET))),
+                () -> assertEquals(-325, BitBoard.fromFEN("rnbqkbnr/pppp1ppp/8/4p3/8/7N/PPPPPPPP/RNBQKB1R w KQkq - 0 1")
+                        .staticExchangeEvaluation(PackedMove.encode(23, 29, PackedMove.QUIET)))
+        );
+    }
+
+    /**
+     * Counts the number of positions upto the given depth.
+     * @param bitBoard The position being counted from.
+     * @param depth The depth the counting stops at.
+     * @return The number of positions at the depth given.
+     */
+    private static long perft(BitBoard bitBoard, int depth) {
+        if (depth == 0) return 1;
+        int[] moves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+        int moveCount = bitBoard.generateMoves(moves);
+        long count = 0;
+        for (int i = 0; i < moveCount; i++) {
+            bitBoard.makeMove(moves[i]);
+            count += perft(bitBoard, depth - 1);
+            bitBoard.undoMove();
+        }
+        return count;
+    }
+}
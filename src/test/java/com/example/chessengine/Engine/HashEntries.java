@@ -0,0 +1,101 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.Moves.PackedMove;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the transposition table.
+ */
+class HashEntries {
+
+    /**
+     * Tests an entry is stored and found again with the same move, score, depth and bound, and other keys aren't found.
+     */
+    @Test
+    @DisplayName("stored entries are found again.")
+    void storesAndProbes() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        int move = PackedMove.encode(12, 28, PackedMove.DOUBLE_PAWN_PUSH);
+        table.store(key, move, -300, 7, TranspositionTable.LOWER);
+        long entry = table.probe(key);
+        assertAll(
+                () -> assertEquals(move, TranspositionTable.move(entry)),
+                () -> assertEquals(-300, TranspositionTable.score(entry)),
+                () -> assertEquals(7, TranspositionTable.depth(entry)),
+                () -> assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry)),
+                () -> assertEquals(0, table.probe(key + 1))
+        );
+        table.clear();
+        assertEquals(0, table.probe(key));
+    }
+
+    /**
+     * Tests a key that falls in the same bucket as a stored entry doesn't match it, as the stored key is XORed with the data,
+     * and that every entry of a full bucket is kept.
+     */
+    @Test
+    @DisplayName("keys are checked against the entry's data.")
+    void verifiesKeys() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x0F0F_0000_0000_1234L;
+        // the high bits aren't used to find the bucket in a small table
+        long[] sameBucket = {key, key ^ (1L << 60), key ^ (1L << 61), key ^ (1L << 62)};
+        table.store(sameBucket[0], PackedMove.NONE, 10, 3, TranspositionTable.EXACT);
+        assertEquals(0, table.probe(sameBucket[1]));
+
+        for (int i = 1; i < sameBucket.length; i++) {
+            table.store(sameBucket[i], PackedMove.NONE, 10 + i, 3, TranspositionTable.EXACT);
+        }
+        for (int i = 0; i < sameBucket.length; i++) {
+            assertEquals(10 + i, TranspositionTable.score(table.probe(sameBucket[i])));
+        }
+    }
+
+    /**
+     * Tests a shallow result doesn't replace a much deeper entry for the same position from the same search, even if it is exact,
+     * and keeps the stored move when it doesn't have one.
+     */
+    @Test
+    @DisplayName("deep entries aren't replaced by shallow results.")
+    void keepsDeepEntries() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1111_2222_3333_4444L;
+        int move = PackedMove.encode(6, 21, PackedMove.QUIET);
+        table.store(key, move, 50, 10, TranspositionTable.LOWER);
+        table.store(key, PackedMove.NONE, 20, 0, TranspositionTable.EXACT);
+        assertEquals(10, TranspositionTable.depth(table.probe(key)));
+
+        table.store(key, PackedMove.NONE, 30, 9, TranspositionTable.EXACT);
+        long entry = table.probe(key);
+        assertAll(
+                () -> assertEquals(9, TranspositionTable.depth(entry)),
+                () -> assertEquals(30, TranspositionTable.score(entry)),
+                () -> assertEquals(move, TranspositionTable.move(entry))
+        );
+
+        table.newSearch();
+        table.store(key, PackedMove.NONE, 40, 0, TranspositionTable.EXACT);
+        assertEquals(0, TranspositionTable.depth(table.probe(key)));
+    }
+
+    /**
+     * Tests mate scores are stored as the distance from the position, and changed back to the distance from the root at any ply.
+     */
+    @Test
+    @DisplayName("mate scores are adjusted by the ply.")
+    void adjustsMateScores() {
+        int mate = Engine.mateScore;
+        assertAll(
+                () -> assertEquals(mate - 6, TranspositionTable.toStoredScore(mate - 10, 4, mate)),
+                () -> assertEquals(mate - 10, TranspositionTable.fromStoredScore(TranspositionTable.toStoredScore(mate - 10, 4, mate), 4, mate)),
+                () -> assertEquals(mate - 8, TranspositionTable.fromStoredScore(TranspositionTable.toStoredScore(mate - 10, 4, mate), 2, mate)),
+                () -> assertEquals(9 - mate, TranspositionTable.fromStoredScore(TranspositionTable.toStoredScore(7 - mate, 3, mate), 5, mate)),
+                () -> assertEquals(250, TranspositionTable.toStoredScore(250, 6, mate)),
+                () -> assertEquals(-250, TranspositionTable.fromStoredScore(-250, 6, mate))
+        );
+    }
+}
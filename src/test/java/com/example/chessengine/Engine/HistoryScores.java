@@ -0,0 +1,89 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.BitBoard;
+import com.example.chessengine.Board.Moves.PackedMove;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the history scores used to order quiet moves.
+ */
+class HistoryScores {
+    /**
+     * The start position.
+     */
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * Tests the butterfly scores of the move causing the cutoff and the moves searched before it stay within MAX_HISTORY,
+     * however many times they are updated.
+     */
+    @Test
+    @DisplayName("butterfly scores stay within the maximum.")
+    void butterflyBounds() {
+        BitBoard bitBoard = BitBoard.fromFEN(START);
+        History history = new History();
+        int knight = PackedMove.encode(6, 21, PackedMove.QUIET);
+        int pawn = PackedMove.encode(12, 20, PackedMove.QUIET);
+        int[] quietsSearched = {pawn, knight};
+
+        history.update(bitBoard, knight, quietsSearched, 2, 20);
+        assertEquals(400 * 32, history.getQuietScore(bitBoard, knight, -1));
+        for (int i = 0; i < 200; i++) {
+            history.update(bitBoard, knight, quietsSearched, 2, 20);
+            assertTrue(history.getQuietScore(bitBoard, knight, -1) <= History.MAX_HISTORY);
+            assertTrue(history.getQuietScore(bitBoard, pawn, -1) >= -History.MAX_HISTORY);
+        }
+        assertTrue(history.getQuietScore(bitBoard, knight, -1) > History.MAX_HISTORY / 2);
+        assertTrue(history.getQuietScore(bitBoard, pawn, -1) < -History.MAX_HISTORY / 2);
+    }
+
+    /**
+     * Tests the continuation scores of a reply to the previous move also stay within MAX_HISTORY, and the reply becomes the countermove.
+     */
+    @Test
+    @DisplayName("continuation scores stay within the maximum.")
+    void continuationBounds() {
+        BitBoard bitBoard = BitBoard.fromFEN(START);
+        bitBoard.makeMove(PackedMove.encode(12, 28, PackedMove.DOUBLE_PAWN_PUSH));
+        History history = new History();
+        int reply = PackedMove.encode(62, 45, PackedMove.QUIET);
+        int row = history.continuationRow(bitBoard);
+        assertNotEquals(-1, row);
+
+        for (int i = 0; i < 200; i++) {
+            history.update(bitBoard, reply, new int[]{reply}, 1, 20);
+            assertTrue(history.getQuietScore(bitBoard, reply, row) <= 2 * History.MAX_HISTORY);
+        }
+        assertTrue(history.getQuietScore(bitBoard, reply, row) > History.MAX_HISTORY);
+        assertEquals(reply, history.getCountermove(bitBoard));
+    }
+
+    /**
+     * Tests aging halves the scores and clearing removes the scores and countermoves.
+     */
+    @Test
+    @DisplayName("scores are halved by aging and removed by clearing.")
+    void agesAndClears() {
+        BitBoard bitBoard = BitBoard.fromFEN(START);
+        bitBoard.makeMove(PackedMove.encode(12, 28, PackedMove.DOUBLE_PAWN_PUSH));
+        History history = new History();
+        int reply = PackedMove.encode(62, 45, PackedMove.QUIET);
+        int row = history.continuationRow(bitBoard);
+
+        history.update(bitBoard, reply, new int[0], 0, 10);
+        assertEquals(100 * 32, history.getQuietScore(bitBoard, reply, -1));
+        assertEquals(2 * 100 * 32, history.getQuietScore(bitBoard, reply, row));
+        history.age();
+        assertEquals(50 * 32, history.getQuietScore(bitBoard, reply, -1));
+        assertEquals(2 * 50 * 32, history.getQuietScore(bitBoard, reply, row));
+
+        history.clear();
+        assertAll(
+                () -> assertEquals(0, history.getQuietScore(bitBoard, reply, row)),
+                () -> assertEquals(PackedMove.NONE, history.getCountermove(bitBoard))
+        );
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.BitBoard;
+import com.example.chessengine.Board.Moves.PackedMove;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the staged move picker.
+ */
+class MoveOrdering {
+    /**
+     * A middlegame position with captures that win and lose material, promotions, castling and pins.
+     */
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    /**
+     * Tests every legal move is given exactly once, with the hash move first and the captures that lose material last.
+     */
+    @Test
+    @DisplayName("move picker gives every legal move once in stage order.")
+    void givesEveryMoveOnce() {
+        BitBoard bitBoard = BitBoard.fromFEN(KIWIPETE);
+        int[] legalMoves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+        int legalCount = bitBoard.generateMoves(legalMoves);
+        int hashMove = PackedMove.encode(4, 6, PackedMove.KING_CASTLE);
+        int killer = PackedMove.encode(11, 2, PackedMove.QUIET);
+        // a move that isn't legal in this position
+        int illegalKiller = PackedMove.encode(0, 56, PackedMove.QUIET);
+
+        MovePicker movePicker = new MovePicker(new int[BitBoard.MAX_MOVES_IN_POSITION], new int[BitBoard.MAX_MOVES_IN_POSITION]);
+        movePicker.init(bitBoard, hashMove, killer, illegalKiller, new History());
+        int[] picked = new int[BitBoard.MAX_MOVES_IN_POSITION];
+        int pickedCount = 0;
+        for (int move = movePicker.next(); move != PackedMove.NONE; move = movePicker.next()) {
+            picked[pickedCount++] = move;
+        }
+
+        int[] sortedLegal = Arrays.copyOf(legalMoves, legalCount);
+        int[] sortedPicked = Arrays.copyOf(picked, pickedCount);
+        Arrays.sort(sortedLegal);
+        Arrays.sort(sortedPicked);
+        assertArrayEquals(sortedLegal, sortedPicked);
+        assertEquals(hashMove, picked[0]);
+
+        int firstBadCapture = pickedCount;
+        for (int i = 0; i < pickedCount; i++) {
+            if (PackedMove.isCapture(picked[i]) && bitBoard.staticExchangeEvaluation(picked[i]) < 0) {
+                firstBadCapture = i;
+                break;
+            }
+        }
+        assertTrue(firstBadCapture < pickedCount);
+        for (int i = firstBadCapture; i < pickedCount; i++) {
+            assertTrue(PackedMove.isCapture(picked[i]) && bitBoard.staticExchangeEvaluation(picked[i]) < 0);
+        }
+    }
+
+    /**
+     * Tests only the captures and promotions that don't lose material are given for the quiescence search.
+     */
+    @Test
+    @DisplayName("move picker gives only good captures for the quiescence search.")
+    void givesGoodCaptures() {
+        BitBoard bitBoard = BitBoard.fromFEN(KIWIPETE);
+        int[] captures = new int[BitBoard.MAX_MOVES_IN_POSITION];
+        int captureCount = bitBoard.generateCaptures(captures, 0);
+        int goodCount = 0;
+        for (int i = 0; i < captureCount; i++) {
+            if (bitBoard.staticExchangeEvaluation(captures[i]) >= 0) goodCount++;
+        }
+
+        MovePicker movePicker = new MovePicker(new int[BitBoard.MAX_MOVES_IN_POSITION], new int[BitBoard.MAX_MOVES_IN_POSITION]);
+        movePicker.initCaptures(bitBoard);
+        int pickedCount = 0;
+        for (int move = movePicker.next(); move != PackedMove.NONE; move = movePicker.next()) {
+            assertTrue(bitBoard.staticExchangeEvaluation(move) >= 0);
+            pickedCount++;
+        }
+        assertEquals(goodCount, pickedCount);
+    }
+}
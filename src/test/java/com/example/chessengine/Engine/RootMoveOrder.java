@@ -0,0 +1,90 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.BitBoard;
+import com.example.chessengine.Board.Moves.PackedMove;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the root move list.
+ */
+class RootMoveOrder {
+    /**
+     * The start position.
+     */
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * Tests the moves are sorted by score, then by the score in the last iteration, then by node count,
+     * and the moves that are equal keep their order.
+     */
+    @Test
+    @DisplayName("root moves are sorted by score and keep the order of equal moves.")
+    void sortsStably() {
+        RootMoves rootMoves = new RootMoves();
+        rootMoves.init(BitBoard.fromFEN(START), List.of());
+        int size = rootMoves.size();
+        int[] original = new int[size];
+        for (int i = 0; i < size; i++) {
+            original[i] = rootMoves.move(i);
+        }
+
+        rootMoves.startIteration();
+        rootMoves.update(5, 30, new int[0], 0);
+        rootMoves.update(10, 50, new int[0], 0);
+        rootMoves.failLow(15);
+        rootMoves.addNodes(15, 1000);
+        rootMoves.sort(0, size);
+        assertAll(
+                () -> assertEquals(original[10], rootMoves.move(0)),
+                () -> assertEquals(original[5], rootMoves.move(1)),
+                () -> assertEquals(original[15], rootMoves.move(2)),
+                () -> assertEquals(original[0], rootMoves.move(3)),
+                () -> assertEquals(original[19], rootMoves.move(size - 1)),
+                () -> assertEquals(50, rootMoves.score(0)),
+                () -> assertEquals(original[10], rootMoves.pv(0)[0])
+        );
+
+        // the last iteration's scores order the moves that fail low in the next one
+        rootMoves.startIteration();
+        rootMoves.clearScores(0);
+        rootMoves.addNodes(3, 500);
+        rootMoves.sort(0, size);
+        assertAll(
+                () -> assertEquals(original[10], rootMoves.move(0)),
+                () -> assertEquals(original[5], rootMoves.move(1)),
+                () -> assertEquals(original[0], rootMoves.move(2)),
+                () -> assertEquals(original[15], rootMoves.move(3)),
+                () -> assertEquals(original[19], rootMoves.move(size - 1)),
+                () -> assertEquals(RootMoves.NO_SCORE, rootMoves.score(0))
+        );
+    }
+
+    /**
+     * Tests the search moves limit the root moves, and every legal move is used if none of them are legal.
+     */
+    @Test
+    @DisplayName("root moves are limited to the legal search moves.")
+    void limitsToSearchMoves() {
+        BitBoard bitBoard = BitBoard.fromFEN(START);
+        RootMoves rootMoves = new RootMoves();
+
+        rootMoves.init(bitBoard, List.of("e2e4", "g1f3", "e2e5"));
+        assertEquals(2, rootMoves.size());
+        assertTrue(rootMoves.isRestricted());
+        assertNotEquals(-1, rootMoves.indexOf(PackedMove.encode(12, 28, PackedMove.DOUBLE_PAWN_PUSH)));
+        assertNotEquals(-1, rootMoves.indexOf(PackedMove.encode(6, 21, PackedMove.QUIET)));
+
+        rootMoves.init(bitBoard, List.of("e2e5"));
+        assertEquals(20, rootMoves.size());
+        assertFalse(rootMoves.isRestricted());
+
+        rootMoves.init(bitBoard, List.of());
+        assertEquals(20, rootMoves.size());
+        assertFalse(rootMoves.isRestricted());
+    }
+}
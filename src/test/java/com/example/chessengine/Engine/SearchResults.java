@@ -0,0 +1,222 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.BitBoard;
+import com.example.chessengine.Board.Board;
+import com.example.chessengine.Board.Colour;
+import com.example.chessengine.Board.Moves.PackedMove;
+import com.example.chessengine.Board.Pieces.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the moves and scores found by the search.
+ */
+class SearchResults {
+    /**
+     * The time in milliseconds each position is analysed for.
+     */
+    private static final long MOVE_TIME = 500;
+
+    /**
+     * Creates a board from the piece placement and colour to move of a FEN string, without castling rights or an en passant square.
+     * @param fen The FEN string of the position.
+     * @return The board of the position.
+     */
+    private static Board boardFromFEN(String fen) {
+        String[] sections = fen.split(" ");
+        Board board = new Board(sections[1].equals("w") ? Colour.WHITE : Colour.BLACK);
+        String[] ranks = sections[0].split("/");
+        for (int i = 0; i < 8; i++) {
+            int row = 7 - i;
+            int col = 0;
+            for (char c : ranks[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                Colour colour = Character.isUpperCase(c) ? Colour.WHITE : Colour.BLACK;
+                switch (Character.toLowerCase(c)) {
+                    case 'p' -> board.addPiece(new Pawn(board, row, col, colour));
+                    case 'n' -> board.addPiece(new Knight(board, row, col, colour));
+                    case 'b' -> board.addPiece(new Bishop(board, row, col, colour));
+                    case 'r' -> board.addPiece(new Rook(board, row, col, colour, false));
+                    case 'q' -> board.addPiece(new Queen(board, row, col, colour));
+                    case 'k' -> board.addPiece(new King(board, row, col, colour, false));
+                    default -> throw new IllegalArgumentException("Invalid piece character: " + c);
+                }
+                col++;
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Plays a legal move on a board.
+     * @param board The board to play the move on.
+     * @param uci The move in UCI notation.
+     */
+    private static void playMove(Board board, String uci) {
+        int[] moves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+        int moveCount = new BitBoard(board).generateMoves(moves);
+        for (int i = 0; i < moveCount; i++) {
+            if (PackedMove.toUci(moves[i]).equals(uci)) {
+                board.movePiece(PackedMove.toMove(moves[i], board), false);
+                return;
+            }
+        }
+        fail("Illegal move: " + uci);
+    }
+
+    /**
+     * Analyses a position for MOVE_TIME.
+     * @param fen The FEN string of the position.
+     * @return The best line found.
+     */
+    private static AnalysisLine analyse(String fen) {
+        Board board = boardFromFEN(fen);
+        Engine engine = new Engine(board, board.getColourToMove());
+        List<AnalysisLine> lines = engine.analyse(MOVE_TIME);
+        assertEquals(1, lines.size());
+        return lines.get(0);
+    }
+
+    /**
+     * Tests the search finds a knight fork of the king and queen, and scores the position as winning after it.
+     */
+    @Test
+    @DisplayName("search finds a knight fork.")
+    void findsFork() {
+        AnalysisLine line = analyse("3q3k/6pp/8/4N3/8/8/5PPP/6K1 w - - 0 1");
+        assertAll(
+                () -> assertEquals("e5f7", line.move()),
+                () -> assertTrue(line.score() > 200)
+        );
+    }
+
+    /**
+     * Tests the search finds a mate in 2 that starts with a queen sacrifice, scored as a mate 3 plies from the root,
+     * so the mate distance is kept through the transposition table and mate distance pruning.
+     */
+    @Test
+    @DisplayName("search finds a mate in 2 with the correct distance.")
+    void findsMateInTwo() {
+        AnalysisLine line = analyse("5r1k/6pp/7N/8/8/1Q6/5PPP/6K1 w - - 0 1");
+        assertAll(
+                () -> assertEquals("b3g8", line.move()),
+                () -> assertEquals(Engine.mateScore - 3, line.score())
+        );
+    }
+
+    /**
+     * Tests the search takes a hanging queen, so null move pruning and late move reductions don't drop a winning capture.
+     */
+    @Test
+    @DisplayName("search takes a hanging queen.")
+    void takesHangingQueen() {
+        AnalysisLine line = analyse("6k1/pp3ppp/8/8/3q4/5N2/PP3PPP/6K1 w - - 0 1");
+        assertAll(
+                () -> assertEquals("f3d4", line.move()),
+                () -> assertTrue(line.score() > 200)
+        );
+    }
+
+    /**
+     * Tests the search finds a quiet pawn push that forks a knight and bishop, where every other move loses material,
+     * so the pruning of quiet moves near the leaves doesn't miss it.
+     */
+    @Test
+    @DisplayName("search finds a quiet pawn fork.")
+    void findsQuietFork() {
+        AnalysisLine line = analyse("6k1/5ppp/2n1b3/8/3P4/2N5/5PPP/6K1 w - - 0 1");
+        assertAll(
+                () -> assertEquals("d4d5", line.move()),
+                () -> assertTrue(line.score() > -200)
+        );
+    }
+
+    /**
+     * Tests multi-PV analysis gives the requested number of lines, ranked in order with different moves and scores that don't increase,
+     * and that limiting the search moves limits the lines to those moves.
+     */
+    @Test
+    @DisplayName("multi-PV analysis gives ranked lines for the search moves.")
+    void analysesMultiPv() {
+        Engine engine = new Engine(Board.getStartPosition(), Colour.WHITE);
+        engine.setMultiPv(3);
+        List<AnalysisLine> lines = engine.analyse(MOVE_TIME);
+        assertEquals(3, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(i + 1, lines.get(i).rank());
+            if (i > 0) assertTrue(lines.get(i).score() <= lines.get(i - 1).score());
+        }
+        assertEquals(3, lines.stream().map(AnalysisLine::move).distinct().count());
+        assertEquals(lines, engine.getAnalysis());
+
+        List<String> searchMoves = List.of("e2e4", "d2d4");
+        engine.setSearchMoves(searchMoves);
+        List<AnalysisLine> searchMoveLines = engine.analyse(MOVE_TIME);
+        assertEquals(2, searchMoveLines.size());
+        assertTrue(searchMoveLines.get(1).score() <= searchMoveLines.get(0).score());
+        assertTrue(searchMoves.contains(searchMoveLines.get(0).move()));
+        assertTrue(searchMoves.contains(searchMoveLines.get(1).move()));
+        assertNotEquals(searchMoveLines.get(0).move(), searchMoveLines.get(1).move());
+    }
+
+    /**
+     * Tests a search with helper threads sharing the transposition table gives a legal move,
+     * and counts the positions searched by the helpers as well as the main worker.
+     */
+    @Test
+    @DisplayName("search with helper threads gives a legal move.")
+    void searchesWithHelpers() {
+        Board board = boardFromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1");
+        Engine engine = new Engine(board, Colour.WHITE);
+        engine.setHelperThreadCount(2);
+        List<AnalysisLine> lines = engine.analyse(MOVE_TIME);
+        engine.setHelperThreadCount(0);
+
+        BitBoard bitBoard = new BitBoard(board);
+        int[] moves = new int[BitBoard.MAX_MOVES_IN_POSITION];
+        int moveCount = bitBoard.generateMoves(moves);
+        List<String> legalMoves = new ArrayList<>();
+        for (int i = 0; i < moveCount; i++) {
+            legalMoves.add(PackedMove.toUci(moves[i]));
+        }
+        assertEquals(1, lines.size());
+        assertTrue(legalMoves.contains(lines.get(0).move()));
+        assertTrue(engine.getLastSearchNodeCount() > engine.getMainWorkerNodeCount());
+    }
+
+    /**
+     * Tests the ponder position is the position after the engine's move and the expected reply,
+     * and that a stop before the ponder search starts makes it return straight away.
+     */
+    @Test
+    @DisplayName("ponder position follows the principal variation.")
+    void pondersOnExpectedReply() {
+        Board board = Board.getStartPosition();
+        Engine engine = new Engine(board, Colour.WHITE);
+        engine.analyse(MOVE_TIME);
+        List<String> principalVariation = engine.getPrincipalVariation();
+        assertTrue(principalVariation.size() >= 2);
+
+        playMove(board, principalVariation.get(0));
+        BitBoard ponderPosition = engine.getPonderPosition();
+        assertNotNull(ponderPosition);
+        assertNotEquals(ponderPosition.getZobristKey(), engine.getPositionKey());
+        playMove(board, principalVariation.get(1));
+        assertEquals(ponderPosition.getZobristKey(), engine.getPositionKey());
+
+        // the engine thread clears the stop flag and starts the time manager before pondering
+        engine.stopSearch = false;
+        engine.getTimeManager().startInfinite();
+        engine.stopCurrentSearch();
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> engine.ponder(ponderPosition));
+    }
+}
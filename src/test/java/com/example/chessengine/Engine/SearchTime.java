@@ -0,0 +1,94 @@
+package com.example.chessengine.Engine;
+
+import com.example.chessengine.Board.Moves.PackedMove;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the time manager's soft and hard limits.
+ */
+class SearchTime {
+    /**
+     * Two different moves reported as the best move.
+     */
+    private static final int MOVE = PackedMove.encode(12, 28, PackedMove.DOUBLE_PAWN_PUSH), OTHER_MOVE = PackedMove.encode(6, 21, PackedMove.QUIET);
+
+    /**
+     * Tests a fixed move time search uses all of its time, even when the best move is stable,
+     * and stops at the move time less the overhead.
+     */
+    @Test
+    @DisplayName("move time searches use the whole move time.")
+    void moveTimeLimits() throws InterruptedException {
+        TimeManager timeManager = new TimeManager();
+        timeManager.startMoveTime(1050);
+        timeManager.iterationFinished(1, MOVE, 0, 1.0);
+        timeManager.iterationFinished(2, MOVE, 0, 1.0);
+        Thread.sleep(850);
+        assertFalse(timeManager.softLimitReached());
+        assertFalse(timeManager.hardLimitReached());
+        Thread.sleep(200);
+        assertTrue(timeManager.softLimitReached());
+        assertTrue(timeManager.hardLimitReached());
+    }
+
+    /**
+     * Tests a clock search shortens the soft limit when the best move is stable and took almost all of the search,
+     * where 3000 ms left for 5 moves plans 600 ms.
+     */
+    @Test
+    @DisplayName("clock searches stop early when the best move is stable.")
+    void clockStableMove() throws InterruptedException {
+        TimeManager timeManager = new TimeManager();
+        timeManager.start(3050, 0, 5);
+        timeManager.iterationFinished(1, MOVE, 0, 1.0);
+        timeManager.iterationFinished(2, MOVE, 0, 1.0);
+        Thread.sleep(520);
+        assertTrue(timeManager.softLimitReached());
+        assertFalse(timeManager.hardLimitReached());
+    }
+
+    /**
+     * Tests a clock search extends the soft limit when the best move changes and the score falls,
+     * but never past the hard limit, which is at most 80% of the time left.
+     */
+    @Test
+    @DisplayName("clock searches extend the soft limit when the best move is unstable.")
+    void clockUnstableMove() throws InterruptedException {
+        TimeManager timeManager = new TimeManager();
+        timeManager.start(3050, 0, 5);
+        timeManager.iterationFinished(1, MOVE, 0, 0.5);
+        timeManager.iterationFinished(2, OTHER_MOVE, -50, 0.5);
+        Thread.sleep(700);
+        assertFalse(timeManager.softLimitReached());
+        assertFalse(timeManager.hardLimitReached());
+
+        timeManager.start(150, 0, 1);
+        timeManager.iterationFinished(1, MOVE, 0, 0.5);
+        timeManager.iterationFinished(2, OTHER_MOVE, -50, 0.5);
+        Thread.sleep(100);
+        assertTrue(timeManager.softLimitReached());
+        assertTrue(timeManager.hardLimitReached());
+    }
+
+    /**
+     * Tests an infinite search never reaches its limits, and invalid times are rejected.
+     */
+    @Test
+    @DisplayName("infinite searches have no limits and invalid times are rejected.")
+    void infiniteAndInvalid() {
+        TimeManager timeManager = new TimeManager();
+        timeManager.startInfinite();
+        timeManager.iterationFinished(1, MOVE, 0, 1.0);
+        assertAll(
+                () -> assertFalse(timeManager.softLimitReached()),
+                () -> assertFalse(timeManager.hardLimitReached()),
+                () -> assertThrows(IllegalArgumentException.class, () -> timeManager.startMoveTime(0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> timeManager.start(0, 0, 0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> timeManager.start(1000, -1, 0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> timeManager.start(1000, 0, -1))
+        );
+    }
+}